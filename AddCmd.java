@@ -3,6 +3,8 @@ import java.util.Objects;
 
 /**
  * Add command that allows the user to add additional books to the library from a {@value #FILE_NAME_EXTENSION} file .
+ * Followed by {@value #BACKGROUND_OPTION}, the file is added in the background while further commands are accepted,
+ * see {@link JobsCmd} and {@link CancelCmd}.
  */
 public class AddCmd extends LibraryCommand {
 
@@ -10,6 +12,10 @@ public class AddCmd extends LibraryCommand {
     private Path filePath;
     /** Private instance field that indicates the extension of the file from which to add the books*/
     private static final String FILE_NAME_EXTENSION = ".csv";
+    /** Private instance field that indicates the option for adding the file in the background*/
+    private static final String BACKGROUND_OPTION = "background";
+    /** Private instance field that indicates whether the file is added in the background*/
+    private boolean background;
 
     /** Constructor of the class AddCmd. It is used to create an Add command.
      * @param argumentInput string that should represent a path ending with the valid file name extension ({@value #FILE_NAME_EXTENSION}).
@@ -20,7 +26,8 @@ public class AddCmd extends LibraryCommand {
         super(CommandType.ADD, argumentInput);
     }
 
-    /** Method that parses the arguments in order to store the path if it ends in a valid {@value #FILE_NAME_EXTENSION} extension.
+    /** Method that parses the arguments in order to store the path if it ends in a valid {@value #FILE_NAME_EXTENSION} extension,
+     * optionally followed by {@value #BACKGROUND_OPTION}.
      * @param argumentInput argument input following the ADD command.
      * @return true if it is a path ending with the valid extension ({@value #FILE_NAME_EXTENSION}). False otherwise.
      * @throws NullPointerException if the given argument input is null.
@@ -30,6 +37,11 @@ public class AddCmd extends LibraryCommand {
         Objects.requireNonNull(argumentInput, Utils.ARGUMENT_INPUT_NULL_MESSAGE);
 
         argumentInput = argumentInput.strip();
+        int lastSeparator = lastWhitespace(argumentInput);
+        if (lastSeparator >= 0 && argumentInput.substring(lastSeparator + 1).equals(BACKGROUND_OPTION)){
+            background = true;
+            argumentInput = argumentInput.substring(0, lastSeparator).strip();
+        }
         if (argumentInput.endsWith(FILE_NAME_EXTENSION)){
             filePath = Path.of(argumentInput);
             return true;
@@ -37,17 +49,37 @@ public class AddCmd extends LibraryCommand {
         return false;
     }
 
+    /** Helper method of parseArguments that finds the whitespace separating the last token of the argument input.
+     * @param argumentInput stripped argument input following the ADD command.
+     * @return index of the last whitespace character, or -1 if the argument input is a single token.
+     */
+    private static int lastWhitespace(String argumentInput) {
+        for (int i = argumentInput.length() - 1; i >= 0; i--){
+            if (Character.isWhitespace(argumentInput.charAt(i))){
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /** Method that is responsible for the execution of the Add command. It uses the stored Path from the parseArguments method
-     * and uses the method loadData to add the list of books.
+     * and uses the method importData to add the list of books, or startImport to add them in the background.
      * @param data {@link LibraryData} which contains the list of  the books.
+     * @param out {@link LibraryOutput} the command results are written to.
      * @throws NullPointerException if the {@link LibraryData} data is null.
      * @throws NullPointerException if {@link #filePath} is null.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, LibraryOutput out) {
         Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
         Objects.requireNonNull(filePath, "Given file path must not be null");
 
-        data.loadData(filePath);
+        if (background){
+            ImportJob job = data.startImport(filePath);
+            out.println("Adding book data in the background as job " + job.getNumber() + ": " + filePath);
+        }
+        else{
+            touched(data.importData(filePath, out).getRowsParsed());
+        }
     }
 }
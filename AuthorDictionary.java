@@ -0,0 +1,52 @@
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of author names, used while loading book data so that every
+ * distinct author is held in memory as exactly one String instance.
+ *
+ * The same authors appear on a large number of rows, so handing out a
+ * canonical instance instead of a freshly parsed String for every row
+ * saves a lot of heap, and equal authors of different books are usually
+ * identical instances, which makes comparing them cheap.
+ *
+ * A dictionary is thread safe, so it can be shared by loaders parsing a
+ * file on multiple threads.
+ */
+public final class AuthorDictionary {
+
+    /** Canonical instance of each author name, keyed by the name itself. */
+    private final Map<String, String> authors;
+
+    /** Create a new and empty dictionary. */
+    public AuthorDictionary() {
+        authors = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the canonical instance of the given author name, adding the
+     * given instance to the dictionary if the name is not known yet.
+     * @param author author name
+     * @return canonical instance equal to the given author name
+     * @throws NullPointerException if the given author is null
+     */
+    public String intern(String author) {
+        Objects.requireNonNull(author, "Given author must not be null.");
+        String canonical = authors.putIfAbsent(author, author);
+        return canonical == null ? author : canonical;
+    }
+
+    /**
+     * Get the number of distinct author names in the dictionary.
+     * @return number of distinct author names
+     */
+    public int size() {
+        return authors.size();
+    }
+
+    /** Remove all author names from the dictionary. */
+    public void clear() {
+        authors.clear();
+    }
+}
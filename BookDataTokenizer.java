@@ -0,0 +1,340 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Allocation-light tokenizer turning raw book data bytes, typically from a
+ * memory mapped file, into book entries.
+ *
+ * Field boundaries are found by scanning the bytes directly, without regular
+ * expressions or intermediate String arrays, and the numeric columns are parsed
+ * straight from the bytes. Rows the fast path cannot handle exactly (unusual
+ * number formats, missing fields, ...) are decoded and handed to the regular
+ * line parser instead, so the result always matches
+ * {@link LibraryFileLoader#parseLine(String, AuthorDictionary)}.
+ *
+ * Author names are interned through an {@link AuthorDictionary}. Recently
+ * seen ASCII authors are additionally cached per tokenizer and recognised
+ * directly from the bytes, so a repeated author costs neither a new String
+ * nor a dictionary lookup.
+ *
+ * A tokenizer keeps reusable scratch buffers and must not be shared between threads.
+ */
+public final class BookDataTokenizer {
+
+    /** Byte that separates the data values in the file*/
+    private static final byte DATA_VALUES_SEPARATOR = ',';
+    /** Byte that separates the authors in the file*/
+    private static final byte AUTHOR_SEPARATOR = '-';
+    /** Byte that separates the integral and fractional digits of the rating*/
+    private static final byte DECIMAL_POINT = '.';
+    /** Byte value of the line feed character*/
+    private static final byte LINE_FEED = '\n';
+    /** Byte value of the carriage return character*/
+    private static final byte CARRIAGE_RETURN = '\r';
+    /** Number of data values read from each line*/
+    private static final int FIELD_COUNT = 5;
+    /** Maximum number of rating digits for which the fast path is exact (10^7 < 2^24)*/
+    private static final int MAX_RATING_DIGITS = 7;
+    /** Maximum number of page digits that cannot overflow an int*/
+    private static final int MAX_PAGES_DIGITS = 9;
+    /** Powers of ten that are exactly representable as float*/
+    private static final float[] FLOAT_POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f};
+    /** Initial size of the scratch buffer used to decode text fields*/
+    private static final int INITIAL_SCRATCH_SIZE = 256;
+    /** Number of slots of the cache of recently seen authors, a power of two*/
+    private static final int RECENT_AUTHORS_SIZE = 1 << 12;
+
+    /** Strict decoder for fields containing non-ASCII bytes, rejecting malformed input like the line reader does. */
+    private final CharsetDecoder decoder;
+    /** Scratch buffer text fields are copied into before being decoded. */
+    private byte[] scratch;
+    /** Start positions of the fields of the current line, plus the end of the last field. */
+    private final int[] fieldBounds;
+    /** Reusable list of the authors of the current line. */
+    private final List<String> authors;
+    /** Dictionary all author names are interned through. */
+    private final AuthorDictionary authorDictionary;
+    /** Direct mapped cache of interned ASCII authors, indexed by the hash of their bytes. */
+    private final String[] recentAuthors;
+
+    /** Create a new tokenizer with its own author dictionary. */
+    public BookDataTokenizer() {
+        this(new AuthorDictionary());
+    }
+
+    /**
+     * Create a new tokenizer interning author names through the given dictionary.
+     * @param authorDictionary dictionary author names are interned through
+     * @throws NullPointerException if the given dictionary is null
+     */
+    public BookDataTokenizer(AuthorDictionary authorDictionary) {
+        Objects.requireNonNull(authorDictionary, "Given author dictionary must not be null.");
+        this.authorDictionary = authorDictionary;
+        recentAuthors = new String[RECENT_AUTHORS_SIZE];
+        decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        scratch = new byte[INITIAL_SCRATCH_SIZE];
+        fieldBounds = new int[FIELD_COUNT + 1];
+        authors = new ArrayList<>();
+    }
+
+    /**
+     * Tokenize all lines within the given range of the buffer. Lines are terminated
+     * by \n, \r or \r\n, as accepted by BufferedReader.readLine.
+     *
+     * @param buffer buffer holding book data, its position and limit are not used
+     * @param from index of the first byte, which has to start a line
+     * @param to index after the last byte, which has to end a line or the data
+     * @param sink receives the parsed book entries in order
+     * @throws CharacterCodingException if a line is not valid UTF-8
+     */
+    public void tokenize(ByteBuffer buffer, int from, int to, Consumer<BookEntry> sink)
+            throws CharacterCodingException {
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to) {
+                byte b = buffer.get(lineEnd);
+                if (b == LINE_FEED || b == CARRIAGE_RETURN) {
+                    break;
+                }
+                lineEnd++;
+            }
+
+            sink.accept(parseLine(buffer, lineStart, lineEnd));
+
+            if (lineEnd < to && buffer.get(lineEnd) == CARRIAGE_RETURN) {
+                lineEnd++;
+                if (lineEnd < to && buffer.get(lineEnd) == LINE_FEED) {
+                    lineEnd++;
+                }
+            } else {
+                lineEnd++;
+            }
+            lineStart = lineEnd;
+        }
+    }
+
+    /**
+     * Parse a single line of book data.
+     * @param buffer buffer holding book data
+     * @param start index of the first byte of the line
+     * @param end index after the last byte of the line, excluding the line break
+     * @return book entry described by the given line
+     * @throws CharacterCodingException if the line is not valid UTF-8
+     */
+    private BookEntry parseLine(ByteBuffer buffer, int start, int end) throws CharacterCodingException {
+        if (!findFields(buffer, start, end)) {
+            return LibraryFileLoader.parseLine(decode(buffer, start, end), authorDictionary);
+        }
+
+        float rating = parseRating(buffer, fieldBounds[2], fieldBounds[3] - 1);
+        int pages = parsePages(buffer, fieldBounds[4], fieldBounds[5]);
+        if (Float.isNaN(rating) || pages < 0) {
+            return LibraryFileLoader.parseLine(decode(buffer, start, end), authorDictionary);
+        }
+
+        String title = decode(buffer, fieldBounds[0], fieldBounds[1] - 1);
+        String[] authorArray = parseAuthors(buffer, fieldBounds[1], fieldBounds[2] - 1);
+        String ISBN = decode(buffer, fieldBounds[3], fieldBounds[4] - 1);
+        return new BookEntry(title, authorArray, rating, ISBN, pages);
+    }
+
+    /**
+     * Find the start of the five data values of the line and store them in
+     * {@link #fieldBounds}, together with the end of the last value.
+     * @param buffer buffer holding book data
+     * @param start index of the first byte of the line
+     * @param end index after the last byte of the line
+     * @return true if all values were found and the last one is non-empty, false otherwise
+     */
+    private boolean findFields(ByteBuffer buffer, int start, int end) {
+        fieldBounds[0] = start;
+        int field = 1;
+        int i = start;
+        while (i < end && field < FIELD_COUNT) {
+            if (buffer.get(i) == DATA_VALUES_SEPARATOR) {
+                fieldBounds[field++] = i + 1;
+            }
+            i++;
+        }
+        if (field < FIELD_COUNT) {
+            return false;
+        }
+        while (i < end && buffer.get(i) != DATA_VALUES_SEPARATOR) {
+            i++;
+        }
+        fieldBounds[FIELD_COUNT] = i;
+        return i > fieldBounds[FIELD_COUNT - 1];
+    }
+
+    /**
+     * Parse a rating of the form digits[.digits] directly from bytes.
+     *
+     * The digits are accumulated into an exact integer mantissa and divided by an
+     * exact power of ten, which yields the correctly rounded float, just like
+     * Float.parseFloat does.
+     *
+     * @param buffer buffer holding book data
+     * @param start index of the first byte of the rating
+     * @param end index after the last byte of the rating
+     * @return parsed rating or NaN if the rating has to be parsed by the regular parser
+     */
+    private static float parseRating(ByteBuffer buffer, int start, int end) {
+        int mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > MAX_RATING_DIGITS) {
+                    return Float.NaN;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction) {
+                    fractionDigits++;
+                }
+            } else if (b == DECIMAL_POINT && !fraction) {
+                fraction = true;
+            } else {
+                return Float.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Float.NaN;
+        }
+        return mantissa / FLOAT_POWERS_OF_TEN[fractionDigits];
+    }
+
+    /**
+     * Parse a page count consisting of decimal digits only directly from bytes.
+     * @param buffer buffer holding book data
+     * @param start index of the first byte of the page count
+     * @param end index after the last byte of the page count
+     * @return parsed page count or -1 if it has to be parsed by the regular parser
+     */
+    private static int parsePages(ByteBuffer buffer, int start, int end) {
+        if (end - start > MAX_PAGES_DIGITS) {
+            return -1;
+        }
+        int pages = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            pages = pages * 10 + (b - '0');
+        }
+        return pages;
+    }
+
+    /**
+     * Split the authors value at each author separator. Mirrors String.split in
+     * that trailing empty authors are dropped, unless the whole value is empty.
+     * @param buffer buffer holding book data
+     * @param start index of the first byte of the authors value
+     * @param end index after the last byte of the authors value
+     * @return authors of the book
+     * @throws CharacterCodingException if an author is not valid UTF-8
+     */
+    private String[] parseAuthors(ByteBuffer buffer, int start, int end) throws CharacterCodingException {
+        authors.clear();
+        int authorStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer.get(i) == AUTHOR_SEPARATOR) {
+                authors.add(author(buffer, authorStart, i));
+                authorStart = i + 1;
+            }
+        }
+        if (end > start) {
+            int last = authors.size();
+            while (last > 0 && authors.get(last - 1).isEmpty()) {
+                last--;
+            }
+            return authors.subList(0, last).toArray(new String[0]);
+        }
+        return authors.toArray(new String[0]);
+    }
+
+    /**
+     * Get the interned author name stored in the given range of the buffer.
+     * @param buffer buffer holding book data
+     * @param start index of the first byte of the author
+     * @param end index after the last byte of the author
+     * @return canonical instance of the author name
+     * @throws CharacterCodingException if the author is not valid UTF-8
+     */
+    private String author(ByteBuffer buffer, int start, int end) throws CharacterCodingException {
+        int hash = 0;
+        boolean ascii = true;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            hash = 31 * hash + b;
+            ascii &= b >= 0;
+        }
+        if (!ascii) {
+            return authorDictionary.intern(decode(buffer, start, end));
+        }
+
+        int slot = (hash ^ (hash >>> 16)) & (RECENT_AUTHORS_SIZE - 1);
+        String cached = recentAuthors[slot];
+        if (cached != null && matches(cached, buffer, start, end)) {
+            return cached;
+        }
+        String author = authorDictionary.intern(decode(buffer, start, end));
+        recentAuthors[slot] = author;
+        return author;
+    }
+
+    /**
+     * Does the given ASCII text consist of exactly the bytes in the given range of the buffer?
+     * @param text ASCII text
+     * @param buffer buffer holding book data
+     * @param start index of the first byte
+     * @param end index after the last byte
+     * @return true if the text matches the bytes, false otherwise
+     */
+    private static boolean matches(String text, ByteBuffer buffer, int start, int end) {
+        if (text.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i - start) != buffer.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the given range of the buffer as UTF-8 text.
+     * @param buffer buffer holding book data
+     * @param start index of the first byte
+     * @param end index after the last byte
+     * @return decoded text
+     * @throws CharacterCodingException if the bytes are not valid UTF-8
+     */
+    private String decode(ByteBuffer buffer, int start, int end) throws CharacterCodingException {
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+        }
+        buffer.get(start, scratch, 0, length);
+
+        for (int i = 0; i < length; i++) {
+            if (scratch[i] < 0) {
+                return decoder.decode(ByteBuffer.wrap(scratch, 0, length)).toString();
+            }
+        }
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -1,4 +1,6 @@
+import java.text.DecimalFormatSymbols;
 import java.util.Arrays;
+import java.util.Locale;
 import java.util.Objects;
 
 /**
@@ -16,6 +18,10 @@ public final class BookEntry {
     private final String ISBN;
     /** Private instance field that represents the number of pages of the book.*/
     private final int pages;
+    /** Private instance field that caches the hash code, which is stable because the entry is immutable.*/
+    private final int hash;
+    /** Private instance field that holds the lower case title, used as case-insensitive search key.*/
+    private final String titleKey;
 
     /** Minimum rating a given book can have*/
     private static final int MIN_RATING = 0;
@@ -28,6 +34,9 @@ public final class BookEntry {
     /** String that is used to format the number of decimal places of the float rating*/
     private static final String RATING_FORMAT = "%.2f";
 
+    /** Format symbols of the default locale used to format ratings, replaced when the default locale changes.*/
+    private static volatile RatingSymbols ratingSymbols = new RatingSymbols(Locale.getDefault(Locale.Category.FORMAT));
+
 
 
     /** Constructor of the BookEntry class. Takes five parameters and initialises the corresponding fields.
@@ -68,6 +77,8 @@ public final class BookEntry {
         this.rating = rating;
         this.ISBN = ISBN;
         this.pages = pages;
+        this.hash = computeHashCode();
+        this.titleKey = title.toLowerCase();
     }
 
     /** Getter for the instance field title.
@@ -84,6 +95,22 @@ public final class BookEntry {
         return authors.clone();
     }
 
+    /** Non-copying access to the authors for hot loops inside the package. The returned array is
+     * the internal state of this entry and must not be modified.
+     * @return the array of Strings that represents the authors of the book
+     */
+    String[] authorsView() {
+        return authors;
+    }
+
+    /** Getter for the lower case title, computed once at construction. Equal to
+     * {@code getTitle().toLowerCase()}.
+     * @return a string that represents the lower case title of the book
+     */
+    public String getTitleKey() {
+        return titleKey;
+    }
+
     /** Getter for the instance field rating.
      * @return a float that represents the rating of the book
      */
@@ -110,11 +137,67 @@ public final class BookEntry {
      */
     @Override
     public String toString() {
-        return  title + "\n" +
-                "by " + stringAuthors() + "\n" +
-                "Rating: " + String.format(RATING_FORMAT, rating) + "\n" +
-                "ISBN: " + ISBN + "\n" +
-                pages + " pages\n" ;
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /** Method that appends the String format of the BookEntry to the given builder, without creating
+     * intermediate strings. The appended text is identical to {@link #toString()}.
+     * @param builder the builder the book entry is appended to.
+     * @return the given builder.
+     * @throws NullPointerException if the given builder is null.
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        Objects.requireNonNull(builder, "Given builder must not be null");
+
+        builder.append(title).append('\n');
+        builder.append("by ").append(authors[0]);
+        for (int i = 1; i < authors.length; i++) {
+            builder.append(AUTHORS_SEPARATOR).append(authors[i]);
+        }
+        builder.append('\n');
+        builder.append("Rating: ");
+        appendRating(builder, rating);
+        builder.append('\n');
+        builder.append("ISBN: ").append(ISBN).append('\n');
+        builder.append(pages).append(" pages\n");
+        return builder;
+    }
+
+    /** Helper method of appendTo that appends the rating with two decimal places, exactly like
+     * {@code String.format(}{@value #RATING_FORMAT}{@code , rating)} does, but without parsing a format
+     * pattern or allocating.
+     *
+     * The rating is rounded half up from its exact binary value. Scaled by 1000 the value is exact in double
+     * precision, so it is either an exact integer, which is rounded with integer arithmetic, or far enough
+     * away from any rounding boundary for the floating point rounding to be exact.
+     * @param builder the builder the rating is appended to.
+     * @param rating the rating to be appended.
+     */
+    private static void appendRating(StringBuilder builder, float rating) {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        RatingSymbols symbols = ratingSymbols;
+        if (!symbols.locale.equals(locale)) {
+            symbols = new RatingSymbols(locale);
+            ratingSymbols = symbols;
+        }
+        if (!symbols.asciiDigits || Float.isNaN(rating) || Float.floatToRawIntBits(rating) < 0) {
+            builder.append(String.format(RATING_FORMAT, rating)); // negative zero, NaN or localised digits
+            return;
+        }
+
+        double scaled = rating * 1000.0;
+        long hundredths;
+        if (Math.rint(scaled) == scaled) {
+            hundredths = ((long) scaled + 5) / 10;
+        } else {
+            hundredths = (long) Math.floor(scaled / 10.0 + 0.5);
+        }
+        long fraction = hundredths % 100;
+        builder.append(hundredths / 100).append(symbols.decimalSeparator);
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        builder.append(fraction);
     }
 
     /** Tests equality of the BookEntry with respect to the given object
@@ -137,27 +220,40 @@ public final class BookEntry {
                 ISBN.equals(bookEntry.ISBN);
     }
 
-    /**Generates a hash code based on the current state of the given book
+    /**Returns the hash code based on the state of the given book, computed once at construction.
      * @return this book's hashcode
      */
     @Override
     public int hashCode() {
+        return hash;
+    }
+
+    /** Helper method of the constructor that generates a hash code based on the state of the given book.
+     * @return this book's hashcode
+     */
+    private int computeHashCode() {
         int result = Objects.hash(title, rating, ISBN, pages);
         result = 31 * result + Arrays.hashCode(authors);
         return result;
     }
 
-    /** Helper method of toString() that helps to print the authors of the book.
-     * @return the authors of the book separated by comas.
-     */
-    private String stringAuthors(){
-        StringBuilder authorBuilder = new StringBuilder(authors[0]);
-        if (authors.length > 1) {
-            for (int i = 1; i < authors.length; i++) {
-                authorBuilder.append(AUTHORS_SEPARATOR).append(authors[i]);
-            }
-        }
-        return authorBuilder.toString();
-}
+    /** Immutable holder of the locale specific symbols needed to format a rating. */
+    private static final class RatingSymbols {
+        /** Locale the symbols belong to.*/
+        private final Locale locale;
+        /** Decimal separator of the locale.*/
+        private final char decimalSeparator;
+        /** Does the locale format digits as ASCII digits?*/
+        private final boolean asciiDigits;
 
+        /** Look up the format symbols of the given locale.
+         * @param locale the locale whose symbols are needed.
+         */
+        private RatingSymbols(Locale locale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            this.locale = locale;
+            this.decimalSeparator = symbols.getDecimalSeparator();
+            this.asciiDigits = symbols.getZeroDigit() == '0';
+        }
+    }
 }
@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+/**
+ * Hash index from books to their ids in a {@link BookStore}, used for duplicate
+ * detection and removal by value.
+ *
+ * The index only holds int ids in an open addressing table with linear probing;
+ * hash codes and equality are resolved through the store. This way it works
+ * for stores that do not keep {@link BookEntry} objects around, and it avoids
+ * boxing every id into a hash map entry.
+ */
+public final class BookIdIndex {
+
+    /** Initial number of table slots, which has to be a power of two*/
+    private static final int INITIAL_CAPACITY = 1024;
+    /** Marker for an empty table slot*/
+    private static final int EMPTY = -1;
+
+    /** Store the indexed ids refer to. */
+    private final BookStore store;
+    /** Table of book ids, with {@value #EMPTY} marking free slots. */
+    private int[] table;
+    /** Number of ids in the table. */
+    private int count;
+
+    /**
+     * Create a new and empty index over the given store.
+     * @param store store the indexed ids refer to
+     */
+    public BookIdIndex(BookStore store) {
+        this.store = store;
+        table = new int[INITIAL_CAPACITY];
+        Arrays.fill(table, EMPTY);
+        count = 0;
+    }
+
+    /**
+     * Find the id of a book equal to the given one.
+     * @param book book to look for
+     * @return id of an equal book in the store, or -1 if there is none
+     */
+    public int find(BookEntry book) {
+        int hash = book.hashCode();
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (store.hashAt(id) == hash && book.equals(store.get(id))) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Add the id of a live book that is not yet part of the index.
+     * @param id id of the book in the store
+     */
+    public void add(int id) {
+        if (2 * (count + 1) > table.length) {
+            resize(table.length * 2);
+        }
+        insert(id);
+        count++;
+    }
+
+    /**
+     * Remove the id of a book from the index. Has to be called before the
+     * book is removed from the store.
+     * @param id id of an indexed book
+     */
+    public void remove(int id) {
+        int mask = table.length - 1;
+        int slot = spread(store.hashAt(id)) & mask;
+        while (table[slot] != id) {
+            if (table[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = EMPTY;
+        count--;
+
+        // shift following entries back so that no probe sequence is interrupted
+        int next = (slot + 1) & mask;
+        while (table[next] != EMPTY) {
+            int moved = table[next];
+            table[next] = EMPTY;
+            insert(moved);
+            next = (next + 1) & mask;
+        }
+    }
+
+    /** Remove all ids from the index. */
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        count = 0;
+    }
+
+    /**
+     * Put an id into the first free slot of its probe sequence.
+     * @param id id of a live book
+     */
+    private void insert(int id) {
+        int mask = table.length - 1;
+        int slot = spread(store.hashAt(id)) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id;
+    }
+
+    /**
+     * Move all ids into a table of the given capacity.
+     * @param capacity new number of table slots, a power of two
+     */
+    private void resize(int capacity) {
+        int[] old = table;
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        for (int id : old) {
+            if (id != EMPTY) {
+                insert(id);
+            }
+        }
+    }
+
+    /**
+     * Spread the bits of a hash code, so that hash codes differing only in
+     * their upper bits do not collide in the table.
+     * @param hash hash code of a book
+     * @return spread hash code
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
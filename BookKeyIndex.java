@@ -0,0 +1,244 @@
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Hash index from a text attribute of each book, such as its title or ISBN,
+ * to the ids of the books carrying it in a {@link BookStore}.
+ *
+ * Like {@link BookIdIndex}, the index only holds int ids in an open addressing
+ * table with linear probing, and resolves keys through the store, so it keeps
+ * neither a String nor a list object per key. Each slot holds the first and
+ * last id of its key together with the hash code of the key, and the ids of a
+ * key are chained in ascending order through one array indexed by id. Removed
+ * books are not taken out, but skipped by the caller until the next compaction.
+ *
+ * Adding a book only fills a free slot or links its id behind the last one
+ * of its key, and growing or clearing the index moves it to new arrays. So
+ * {@link #freeze(IntFunction, int)} hands out a view sharing the arrays in
+ * constant time, which treats all ids from its bound on as not added yet,
+ * even though they are written into the shared arrays. The index is not
+ * thread safe, but frozen views may be read by any number of threads while
+ * the index they were frozen from keeps changing.
+ */
+public final class BookKeyIndex {
+
+    /** Initial number of table slots, which has to be a power of two*/
+    private static final int INITIAL_CAPACITY = 1024;
+    /** Initial number of ids the chain array can hold*/
+    private static final int INITIAL_ID_CAPACITY = 1024;
+    /** Marker for an empty table slot and for the end of a chain*/
+    private static final int EMPTY = -1;
+
+    /** Key of each stored book, looked up by its id. */
+    private final IntFunction<String> keys;
+    /** Bound all ids of a frozen view are below, or {@link Integer#MAX_VALUE} for the index itself. */
+    private final int bound;
+    /** First id of the key of each slot, with {@value #EMPTY} marking free slots. */
+    private int[] heads;
+    /** Last id of the key of each slot. */
+    private int[] tails;
+    /** Hash code of the key of each slot. */
+    private int[] hashes;
+    /** Next id with the same key after each id, or {@value #EMPTY} for the last one. */
+    private int[] next;
+    /** Number of keys in the table. */
+    private int count;
+
+    /**
+     * Create a new and empty index.
+     * @param keys resolves the id of a stored book to its key, for example the title column of a store
+     */
+    public BookKeyIndex(IntFunction<String> keys) {
+        this.keys = keys;
+        bound = Integer.MAX_VALUE;
+        allocate();
+    }
+
+    /**
+     * Create a frozen view of the given index, sharing its arrays.
+     * @param source index to be viewed
+     * @param keys resolves the ids below the bound to their keys
+     * @param bound bound all ids of the view are below
+     */
+    private BookKeyIndex(BookKeyIndex source, IntFunction<String> keys, int bound) {
+        this.keys = keys;
+        this.bound = bound;
+        heads = source.heads;
+        tails = null;
+        hashes = source.hashes;
+        next = source.next;
+        count = source.count;
+    }
+
+    /**
+     * Add a book to the index.
+     * @param id id of the book, which has to be larger than all ids added before
+     * @param key key of the book, equal to the one {@link #keys} resolves its id to
+     */
+    public void add(int id, String key) {
+        if (id >= next.length) {
+            int capacity = Math.max(id + 1, next.length * 2);
+            int oldLength = next.length;
+            next = Arrays.copyOf(next, capacity);
+            Arrays.fill(next, oldLength, capacity, EMPTY);
+        }
+
+        int hash = key.hashCode();
+        int slot = find(key, hash);
+        if (heads[slot] != EMPTY) {
+            next[tails[slot]] = id;
+            tails[slot] = id;
+            return;
+        }
+
+        if (2 * (count + 1) > heads.length) {
+            resize(heads.length * 2);
+            slot = freeSlot(hash);
+        }
+        hashes[slot] = hash;
+        tails[slot] = id;
+        heads[slot] = id;
+        count++;
+    }
+
+    /**
+     * Get the ids of all books with the given key.
+     * @param key key to look up
+     * @return new list of the ascending ids, or null if no book has the key
+     */
+    public IntList get(String key) {
+        int first = firstId(key);
+        if (first == EMPTY) {
+            return null;
+        }
+        IntList ids = new IntList(1);
+        for (int id = first; id != EMPTY && id < bound; id = next[id]) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Count the books with the given key, including removed ones.
+     * @param key key to look up
+     * @return length of the list {@link #get(String)} returns for the key
+     */
+    public int count(String key) {
+        int ids = 0;
+        for (int id = firstId(key); id != EMPTY && id < bound; id = next[id]) {
+            ids++;
+        }
+        return ids;
+    }
+
+    /** Remove all books from the index. Frozen views keep their books. */
+    public void clear() {
+        allocate();
+    }
+
+    /**
+     * Take a view of the index for lookups, which is not affected by any later
+     * change and may be read by any number of threads. Must not be called on a frozen view.
+     * @param keys resolves the ids added so far to their keys without being affected
+     * by later changes either, for example the title column of a frozen store
+     * @param bound bound all ids added so far are below
+     * @return frozen view of the index
+     */
+    public BookKeyIndex freeze(IntFunction<String> keys, int bound) {
+        return new BookKeyIndex(this, keys, bound);
+    }
+
+    /**
+     * Find the first id of the given key. Reads every slot only once, and skips
+     * slots whose first id is not below the bound, as they hold keys added
+     * after the view was frozen.
+     * @param key key to look up
+     * @return first id of the key, or {@value #EMPTY} if no book has the key
+     */
+    private int firstId(String key) {
+        int hash = key.hashCode();
+        int mask = heads.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int head = heads[slot];
+            if (head == EMPTY) {
+                return EMPTY;
+            }
+            if (head < bound && hashes[slot] == hash && key.equals(keys.apply(head))) {
+                return head;
+            }
+        }
+    }
+
+    /**
+     * Find the slot of the given key, or the free slot it would be put into.
+     * Must not be called on a frozen view.
+     * @param key key to look up
+     * @param hash hash code of the key
+     * @return slot of the key, which is free if no book has the key
+     */
+    private int find(String key, int hash) {
+        int mask = heads.length - 1;
+        int slot = spread(hash) & mask;
+        while (heads[slot] != EMPTY && (hashes[slot] != hash || !key.equals(keys.apply(heads[slot])))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Find the first free slot of the probe sequence of the given hash code.
+     * @param hash hash code of a key that is not part of the table
+     * @return free slot
+     */
+    private int freeSlot(int hash) {
+        int mask = heads.length - 1;
+        int slot = spread(hash) & mask;
+        while (heads[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Move all keys into a table of the given capacity.
+     * @param capacity new number of table slots, a power of two
+     */
+    private void resize(int capacity) {
+        int[] oldHeads = heads;
+        int[] oldTails = tails;
+        int[] oldHashes = hashes;
+        heads = new int[capacity];
+        tails = new int[capacity];
+        hashes = new int[capacity];
+        Arrays.fill(heads, EMPTY);
+        for (int i = 0; i < oldHeads.length; i++) {
+            if (oldHeads[i] != EMPTY) {
+                int slot = freeSlot(oldHashes[i]);
+                heads[slot] = oldHeads[i];
+                tails[slot] = oldTails[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    /** Allocate a new and empty table and chain array at their initial capacity. */
+    private void allocate() {
+        heads = new int[INITIAL_CAPACITY];
+        tails = new int[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        next = new int[INITIAL_ID_CAPACITY];
+        Arrays.fill(heads, EMPTY);
+        Arrays.fill(next, EMPTY);
+        count = 0;
+    }
+
+    /**
+     * Spread the bits of a hash code, so that hash codes differing only in
+     * their upper bits do not collide in the table.
+     * @param hash hash code of a key
+     * @return spread hash code
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,428 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Fielded query over the book entries of a library: a disjunction of clauses,
+ * each of which is a conjunction of predicates on single fields.
+ *
+ * A query is written as predicates joined by the keywords {@value #AND} and
+ * {@value #OR}, where {@value #AND} binds stronger and may be omitted between
+ * two predicates. A predicate consists of a field name, an operator and a value,
+ * which has to be enclosed in double quotes if it contains blanks:
+ * <ul>
+ *     <li>{@code title:value} matches titles containing the value, ignoring case,
+ *     and {@code title=value} titles equal to it</li>
+ *     <li>{@code author=value} or {@code author:value} matches books listing the author</li>
+ *     <li>{@code isbn=value} or {@code isbn:value} matches books with the ISBN</li>
+ *     <li>{@code rating} and {@code pages} are compared to a number with
+ *     {@code =}, {@code <}, {@code <=}, {@code >} or {@code >=}</li>
+ * </ul>
+ * Field names are case insensitive, for example
+ * {@code author="Stephen King" rating>=4 OR title:dune}.
+ */
+public final class BookQuery {
+
+    /** Keyword joining two predicates of a clause*/
+    private static final String AND = "AND";
+    /** Keyword joining two clauses*/
+    private static final String OR = "OR";
+    /** Character enclosing values that contain blanks*/
+    private static final char QUOTE = '"';
+
+    /** Fields of a book entry a predicate can refer to. */
+    public enum Field {
+        TITLE,
+        AUTHOR,
+        ISBN,
+        RATING,
+        PAGES
+    }
+
+    /** Operators relating a field to the value of a predicate. */
+    public enum Operator {
+        CONTAINS(":"),
+        EQUAL("="),
+        LESS("<"),
+        LESS_OR_EQUAL("<="),
+        GREATER(">"),
+        GREATER_OR_EQUAL(">=");
+
+        /** Symbol of the operator in a query. */
+        private final String symbol;
+
+        /**
+         * Create an operator.
+         * @param symbol symbol of the operator in a query
+         */
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Get the symbol of the operator.
+         * @return symbol of the operator in a query
+         */
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    /** Condition on a single field of a book entry. */
+    public static final class Predicate {
+
+        /** Field the predicate refers to. */
+        private final Field field;
+        /** Operator relating the field to the value. */
+        private final Operator operator;
+        /** Value as given in the query. */
+        private final String value;
+        /** Value in lower case, for matching titles ignoring case. */
+        private final String lowerCaseValue;
+        /** Value as a number, for the rating and page count, 0 otherwise. */
+        private final double number;
+
+        /**
+         * Create a predicate, normalizing the operator to the ones supported by the field.
+         * @param field field the predicate refers to
+         * @param operator operator as written in the query
+         * @param value value as given in the query
+         * @throws IllegalArgumentException if the value is empty, the operator is not
+         * supported by the field or a numeric value is not a number
+         */
+        private Predicate(Field field, Operator operator, String value) {
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("Missing value for field: " + field.name().toLowerCase(Locale.ROOT));
+            }
+            switch (field) {
+                case TITLE:
+                    if (operator != Operator.CONTAINS && operator != Operator.EQUAL) {
+                        throw unsupported(field, operator);
+                    }
+                    this.number = 0;
+                    break;
+                case AUTHOR:
+                case ISBN:
+                    if (operator != Operator.CONTAINS && operator != Operator.EQUAL) {
+                        throw unsupported(field, operator);
+                    }
+                    operator = Operator.EQUAL;
+                    this.number = 0;
+                    break;
+                default:
+                    if (operator == Operator.CONTAINS) {
+                        operator = Operator.EQUAL;
+                    }
+                    this.number = parseNumber(field, value);
+                    break;
+            }
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+            this.lowerCaseValue = value.toLowerCase();
+        }
+
+        /**
+         * Get the field the predicate refers to.
+         * @return field of the predicate
+         */
+        public Field getField() {
+            return field;
+        }
+
+        /**
+         * Get the operator relating the field to the value. Authors and ISBNs are
+         * always compared with {@link Operator#EQUAL}, and so is {@link Operator#CONTAINS}
+         * normalized to it for the rating and page count.
+         * @return operator of the predicate
+         */
+        public Operator getOperator() {
+            return operator;
+        }
+
+        /**
+         * Get the value as given in the query.
+         * @return value of the predicate
+         */
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * Get the value in lower case.
+         * @return lower case value of the predicate
+         */
+        public String getLowerCaseValue() {
+            return lowerCaseValue;
+        }
+
+        /**
+         * Get the value of a predicate on the rating or page count.
+         * @return value as a number
+         */
+        public double getNumber() {
+            return number;
+        }
+
+        /**
+         * Does the given book satisfy the predicate?
+         * @param book book to be checked
+         * @return true if the book satisfies the predicate, false otherwise
+         * @throws NullPointerException if the given book is null
+         */
+        public boolean matches(BookEntry book) {
+            Objects.requireNonNull(book, "Given book must not be null.");
+
+            switch (field) {
+                case TITLE:
+                    return operator == Operator.EQUAL
+                            ? book.getTitle().equals(value)
+                            : book.getTitleKey().contains(lowerCaseValue);
+                case AUTHOR:
+                    for (String author : book.authorsView()) {
+                        if (author.equals(value)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case ISBN:
+                    return book.getISBN().equals(value);
+                case RATING:
+                    return compare(Float.compare(book.getRating(), (float) number));
+                default:
+                    return compare(Double.compare(book.getPages(), number));
+            }
+        }
+
+        /**
+         * Apply the operator to the result of comparing the field to the value.
+         * @param comparison negative, zero or positive if the field is less than, equal to or greater than the value
+         * @return true if the comparison satisfies the operator, false otherwise
+         */
+        private boolean compare(int comparison) {
+            switch (operator) {
+                case LESS: return comparison < 0;
+                case LESS_OR_EQUAL: return comparison <= 0;
+                case GREATER: return comparison > 0;
+                case GREATER_OR_EQUAL: return comparison >= 0;
+                default: return comparison == 0;
+            }
+        }
+
+        /**
+         * Write the predicate the way it is parsed.
+         * @return field, operator and value of the predicate
+         */
+        @Override
+        public String toString() {
+            boolean quoted = value.indexOf(' ') >= 0;
+            return field.name().toLowerCase(Locale.ROOT) + operator.getSymbol()
+                    + (quoted ? QUOTE + value + QUOTE : value);
+        }
+
+        /**
+         * Create the exception for an operator that a field does not support.
+         * @param field field of the predicate
+         * @param operator unsupported operator
+         * @return exception to be thrown
+         */
+        private static IllegalArgumentException unsupported(Field field, Operator operator) {
+            return new IllegalArgumentException("Operator " + operator.getSymbol() + " is not supported for field: "
+                    + field.name().toLowerCase(Locale.ROOT));
+        }
+
+        /**
+         * Parse the value of a numeric predicate.
+         * @param field numeric field of the predicate
+         * @param value value as given in the query
+         * @return parsed value
+         * @throws IllegalArgumentException if the value is not a finite number
+         */
+        private static double parseNumber(Field field, String value) {
+            try {
+                double number = Double.parseDouble(value);
+                if (Double.isFinite(number)) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException("Invalid number for field " + field.name().toLowerCase(Locale.ROOT)
+                    + ": " + value);
+        }
+    }
+
+    /** Clauses of the query, any of which a matching book has to satisfy completely. */
+    private final List<List<Predicate>> clauses;
+
+    /**
+     * Create a query from parsed clauses.
+     * @param clauses non-empty clauses of the query
+     */
+    private BookQuery(List<List<Predicate>> clauses) {
+        this.clauses = clauses;
+    }
+
+    /**
+     * Parse a query.
+     * @param input query as described in the class documentation
+     * @return parsed query
+     * @throws IllegalArgumentException if the query is empty or malformed
+     * @throws NullPointerException if the given input is null
+     */
+    public static BookQuery parse(String input) {
+        Objects.requireNonNull(input, "Given query must not be null.");
+
+        List<List<Predicate>> clauses = new ArrayList<>();
+        List<Predicate> clause = new ArrayList<>();
+        String previous = OR;
+        for (String token : tokenize(input)) {
+            if (token.equals(AND) || token.equals(OR)) {
+                if (previous != null) {
+                    throw new IllegalArgumentException("Missing predicate before: " + token);
+                }
+                if (token.equals(OR)) {
+                    clauses.add(Collections.unmodifiableList(clause));
+                    clause = new ArrayList<>();
+                }
+                previous = token;
+            } else {
+                clause.add(parsePredicate(token));
+                previous = null;
+            }
+        }
+        if (previous != null) {
+            throw new IllegalArgumentException(clauses.isEmpty() && clause.isEmpty()
+                    ? "Query must not be empty." : "Missing predicate after: " + previous);
+        }
+        clauses.add(Collections.unmodifiableList(clause));
+        return new BookQuery(Collections.unmodifiableList(clauses));
+    }
+
+    /**
+     * Get the clauses of the query, any of which a matching book has to satisfy completely.
+     * @return unmodifiable non-empty list of non-empty clauses
+     */
+    public List<List<Predicate>> getClauses() {
+        return clauses;
+    }
+
+    /**
+     * Does the given book satisfy the query?
+     * @param book book to be checked
+     * @return true if the book satisfies all predicates of at least one clause, false otherwise
+     * @throws NullPointerException if the given book is null
+     */
+    public boolean matches(BookEntry book) {
+        for (List<Predicate> clause : clauses) {
+            if (matchesAll(clause, book)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Does the given book satisfy all given predicates?
+     * @param predicates predicates to be checked
+     * @param book book to be checked
+     * @return true if the book satisfies every predicate, false otherwise
+     * @throws NullPointerException if the given book is null
+     */
+    public static boolean matchesAll(List<Predicate> predicates, BookEntry book) {
+        for (Predicate predicate : predicates) {
+            if (!predicate.matches(book)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the query in normalized form.
+     * @return clauses joined by {@value #OR}, with their predicates joined by {@value #AND}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (List<Predicate> clause : clauses) {
+            if (builder.length() > 0) {
+                builder.append(' ').append(OR).append(' ');
+            }
+            for (int i = 0; i < clause.size(); i++) {
+                builder.append(i == 0 ? "" : " " + AND + " ").append(clause.get(i));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Split a query into keywords and predicates at blanks outside of double quotes,
+     * removing the quotes.
+     * @param input query to be split
+     * @return tokens of the query
+     * @throws IllegalArgumentException if a quote is not closed
+     */
+    private static List<String> tokenize(String input) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean pending = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == QUOTE) {
+                quoted = !quoted;
+                pending = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (pending) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    pending = false;
+                }
+            } else {
+                token.append(c);
+                pending = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quote in query: " + input);
+        }
+        if (pending) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Parse a single predicate.
+     * @param token predicate without quotes
+     * @return parsed predicate
+     * @throws IllegalArgumentException if the token is not a valid predicate
+     */
+    private static Predicate parsePredicate(String token) {
+        int end = 0;
+        while (end < token.length() && Character.isLetter(token.charAt(end))) {
+            end++;
+        }
+        Field field;
+        try {
+            field = Field.valueOf(token.substring(0, end).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown field in predicate: " + token);
+        }
+
+        Operator operator = null;
+        for (Operator candidate : Operator.values()) {
+            if (token.startsWith(candidate.getSymbol(), end)
+                    && (operator == null || candidate.getSymbol().length() > operator.getSymbol().length())) {
+                operator = candidate;
+            }
+        }
+        if (operator == null) {
+            throw new IllegalArgumentException("Missing operator in predicate: " + token);
+        }
+        return new Predicate(field, operator, token.substring(end + operator.getSymbol().length()));
+    }
+}
@@ -0,0 +1,254 @@
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Super class for the storage backing a {@link LibraryData}.
+ *
+ * A store holds books in slots numbered by their id in library order. Removing
+ * a book leaves a tombstone in its slot, so ids stay stable until the store is
+ * compacted. Subclasses decide how the book data is laid out in memory.
+ *
+ * Subclasses never overwrite the data of a slot once it has been added: new
+ * books are only appended, and compacting or clearing a store moves it to new
+ * arrays. This is what allows {@link #freeze()} to share the book data with
+ * the store instead of copying it.
+ */
+public abstract class BookStore {
+
+    /**
+     * Append a book to the store.
+     * @param book book to be stored
+     * @return id of the stored book, which is larger than all ids before
+     * @throws NullPointerException if the given book is null
+     */
+    public abstract int add(BookEntry book);
+
+    /**
+     * Get the book with the given id.
+     * @param id id of the book
+     * @return book with the given id or null if it has been removed
+     * @throws IndexOutOfBoundsException if the id is not within the store
+     */
+    public abstract BookEntry get(int id);
+
+    /**
+     * Has the book with the given id not been removed yet?
+     * @param id id of the book
+     * @return true if the book is still part of the store, false otherwise
+     * @throws IndexOutOfBoundsException if the id is not within the store
+     */
+    public abstract boolean isLive(int id);
+
+    /**
+     * Get the title of the book with the given id.
+     * @param id id of a book, which may have been removed
+     * @return title of the book
+     */
+    public abstract String titleAt(int id);
+
+    /**
+     * Get the lower case title of the live book with the given id.
+     * @param id id of a live book
+     * @return lower case title of the book
+     */
+    public abstract String titleKeyAt(int id);
+
+    /**
+     * Get the ISBN of the book with the given id.
+     * @param id id of a book, which may have been removed
+     * @return ISBN of the book
+     */
+    public abstract String isbnAt(int id);
+
+    /**
+     * Get the rating of the live book with the given id.
+     * @param id id of a live book
+     * @return rating of the book
+     */
+    public abstract float ratingAt(int id);
+
+    /**
+     * Get the page count of the live book with the given id.
+     * @param id id of a live book
+     * @return page count of the book
+     */
+    public abstract int pagesAt(int id);
+
+    /**
+     * Get the number of authors of the live book with the given id.
+     * @param id id of a live book
+     * @return number of authors of the book
+     */
+    public abstract int authorCountAt(int id);
+
+    /**
+     * Get an author of the live book with the given id.
+     * @param id id of a live book
+     * @param index position of the author among the authors of the book
+     * @return author at the given position
+     */
+    public abstract String authorAt(int id, int index);
+
+    /**
+     * Get the hash code of the live book with the given id.
+     * @param id id of a live book
+     * @return hash code of the book, equal to the one of its book entry
+     */
+    public abstract int hashAt(int id);
+
+    /**
+     * Replace the book with the given id by a tombstone.
+     * @param id id of a live book
+     */
+    public abstract void remove(int id);
+
+    /**
+     * Get the number of slots, including tombstones.
+     * @return number of slots in the store
+     */
+    public abstract int size();
+
+    /**
+     * Get the number of books that have not been removed.
+     * @return number of live books in the store
+     */
+    public abstract int liveCount();
+
+    /**
+     * Drop all tombstones, renumbering the remaining books in library order.
+     */
+    public abstract void compact();
+
+    /**
+     * Remove all books and tombstones, so that ids start from zero again.
+     */
+    public abstract void clear();
+
+    /**
+     * Take an immutable copy of the store.
+     *
+     * The copy is not affected by any later change of the store, but shares
+     * the book data and the {@link Tombstones} with it, so taking a copy
+     * takes constant time. Any number of threads may read the copy while
+     * the store keeps changing.
+     *
+     * @return frozen copy of the store, which must not be changed
+     */
+    public abstract BookStore freeze();
+
+    /**
+     * Get the live books of a frozen store in library order.
+     * @return unmodifiable list of the live books, skipping tombstones
+     */
+    public List<BookEntry> liveBooks() {
+        return new FrozenBooks(this, liveCount());
+    }
+
+    /**
+     * Is this store empty and thus ready to back a new library?
+     * @return true if the store holds no slots, false otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Unmodifiable list of the live books of a frozen store, skipping tombstones.
+     */
+    private static final class FrozenBooks extends AbstractList<BookEntry> {
+
+        /** Frozen store, which is never changed again. */
+        private final BookStore store;
+        /** Number of live books in the store. */
+        private final int size;
+        /** Id of the live book at each position, built on first positional access while the store holds tombstones. */
+        private volatile int[] liveIds;
+
+        /**
+         * Create a list of the live books of the given store.
+         * @param store store that is never changed again
+         * @param size number of live books in the store
+         */
+        FrozenBooks(BookStore store, int size) {
+            this.store = store;
+            this.size = size;
+        }
+
+        /**
+         * Get the book at the given position among the live books. Takes constant
+         * time, apart from mapping the positions to ids once on the first call
+         * while the store holds tombstones.
+         * @param index position among the live books
+         * @return book at the given position
+         * @throws IndexOutOfBoundsException if the index is not within the list
+         */
+        @Override
+        public BookEntry get(int index) {
+            Objects.checkIndex(index, size);
+            if (size == store.size()) {
+                return store.get(index);
+            }
+            int[] ids = liveIds;
+            if (ids == null) {
+                ids = new int[size];
+                int position = 0;
+                for (int id = skipTombstones(0); id < store.size(); id = skipTombstones(id + 1)) {
+                    ids[position++] = id;
+                }
+                liveIds = ids;
+            }
+            return store.get(ids[index]);
+        }
+
+        /**
+         * Number of live books.
+         * @return number of live books
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Iterate the live books in library order.
+         * @return iterator skipping tombstones
+         */
+        @Override
+        public Iterator<BookEntry> iterator() {
+            return new Iterator<>() {
+                /** Id of the next live book, or the number of slots. */
+                private int next = skipTombstones(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next < store.size();
+                }
+
+                @Override
+                public BookEntry next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    BookEntry book = store.get(next);
+                    next = skipTombstones(next + 1);
+                    return book;
+                }
+            };
+        }
+
+        /**
+         * Find the next live book.
+         * @param id id to start from
+         * @return id of the next live book, or the number of slots
+         */
+        private int skipTombstones(int id) {
+            while (id < store.size() && !store.isLive(id)) {
+                id++;
+            }
+            return id;
+        }
+    }
+}
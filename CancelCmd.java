@@ -0,0 +1,69 @@
+import java.util.Objects;
+
+/**
+ * Cancel command that allows the user to stop a running import of a book data file, identified by its job number.
+ * Books merged before the import stops remain in the library.
+ */
+public class CancelCmd extends LibraryCommand {
+
+    /** Private instance field that is used to store the number of the job to be cancelled*/
+    private int jobNumber;
+
+    /** Constructor of the class CancelCmd. It is used to create a Cancel command.
+     * @param argumentInput string that should represent a positive job number.
+     * @throws IllegalArgumentException if the given argument input does not satisfy the conditions in parseArguments.
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public CancelCmd(String argumentInput){
+        super(CommandType.CANCEL, argumentInput);
+    }
+
+    /** Method that parses the arguments in order to store the job number.
+     * @param argumentInput argument input following the CANCEL command.
+     * @return true if it is a positive number. False otherwise.
+     * @throws NullPointerException if the given argument input is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, Utils.ARGUMENT_INPUT_NULL_MESSAGE);
+
+        try {
+            jobNumber = Integer.parseInt(argumentInput.strip());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return jobNumber > 0;
+    }
+
+    /** Method that is responsible for the execution of the Cancel command. It requests the import with the stored
+     * job number to stop, and prints an informative message afterwards.
+     * @param data {@link LibraryData} which contains the imports.
+     * @param out {@link LibraryOutput} the informative message is written to.
+     * @throws NullPointerException if the {@link LibraryData} data is null.
+     */
+    @Override
+    public void execute(LibraryData data, LibraryOutput out) {
+        Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
+
+        for (ImportJob job : data.getImports()){
+            if (job.getNumber() == jobNumber){
+                if (job.cancel()){
+                    out.println("Job " + jobNumber + ": cancelling.");
+                }
+                else{
+                    out.println("Job " + jobNumber + ": not running.");
+                }
+                return;
+            }
+        }
+        out.println("Job " + jobNumber + ": not found.");
+    }
+
+    /** The cancel command does not modify the book data itself, so it can reach an import that is still running.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
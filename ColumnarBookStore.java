@@ -0,0 +1,423 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Book store laying out the book data in columns instead of one object per book.
+ *
+ * Ratings and page counts are kept in primitive arrays, titles and ISBNs are
+ * packed as UTF-8 bytes into one shared byte array, and authors are dictionary
+ * encoded, so that every distinct author name is stored only once. This avoids
+ * the object headers and references of a {@link BookEntry} with its Strings and
+ * author array per book, and makes scans over a column cache friendly.
+ * {@link BookEntry} objects are only materialised on demand.
+ */
+public final class ColumnarBookStore extends BookStore {
+
+    /** Number of books the columns can hold before they have to grow for the first time*/
+    private static final int INITIAL_CAPACITY = 1024;
+    /** Number of bytes the text column can hold before it has to grow for the first time*/
+    private static final int INITIAL_TEXT_CAPACITY = 64 * INITIAL_CAPACITY;
+
+    /** Number of slots in use, including tombstones. */
+    private int size;
+    /** Rating column. */
+    private float[] ratings;
+    /** Page count column. */
+    private int[] pages;
+    /** Hash code column, holding the hash code of each book entry. */
+    private int[] hashes;
+    /**
+     * Start of each book's title within {@link #text}. The title is followed by
+     * the ISBN, which ends where the text of the next book starts.
+     */
+    private int[] titleStarts;
+    /** Start of each book's ISBN within {@link #text}. */
+    private int[] isbnStarts;
+    /** Packed UTF-8 bytes of all titles and ISBNs. */
+    private byte[] text;
+    /** Number of bytes in use in {@link #text}. */
+    private int textLength;
+    /** Start of each book's authors within {@link #authorRefs}. */
+    private int[] authorStarts;
+    /** Dictionary ids of the authors of all books. */
+    private int[] authorRefs;
+    /** Number of ids in use in {@link #authorRefs}. */
+    private int authorRefCount;
+    /** Author dictionary, mapping each author id to its name. */
+    private String[] authorNames;
+    /** Number of names in use in {@link #authorNames}. */
+    private int authorCount;
+    /** Author dictionary, mapping each author name to its id, or null in a frozen copy. */
+    private Map<String, Integer> authorIds;
+    /** Tombstones of the removed books. */
+    private final Tombstones tombstones;
+
+    /** Create a new and empty store. */
+    public ColumnarBookStore() {
+        tombstones = new Tombstones();
+        allocateColumns();
+    }
+
+    /**
+     * Create a frozen copy of the given store, sharing its columns and tombstones.
+     * @param source store to be copied
+     */
+    private ColumnarBookStore(ColumnarBookStore source) {
+        size = source.size;
+        ratings = source.ratings;
+        pages = source.pages;
+        hashes = source.hashes;
+        titleStarts = source.titleStarts;
+        isbnStarts = source.isbnStarts;
+        text = source.text;
+        textLength = source.textLength;
+        authorStarts = source.authorStarts;
+        authorRefs = source.authorRefs;
+        authorRefCount = source.authorRefCount;
+        authorNames = source.authorNames;
+        authorCount = source.authorCount;
+        authorIds = null;
+        tombstones = source.tombstones.freeze();
+    }
+
+    /**
+     * Append a book to the columns.
+     * @param book book to be stored
+     * @return id of the stored book
+     * @throws NullPointerException if the given book is null
+     * @throws IllegalStateException if the packed text would exceed the maximum array size
+     */
+    @Override
+    public int add(BookEntry book) {
+        Objects.requireNonNull(book, "Given book must not be null.");
+        if (size == ratings.length) {
+            growColumns();
+        }
+
+        int id = size++;
+        ratings[id] = book.getRating();
+        pages[id] = book.getPages();
+        hashes[id] = book.hashCode();
+        titleStarts[id] = textLength;
+        appendText(book.getTitle());
+        isbnStarts[id] = textLength;
+        appendText(book.getISBN());
+
+        authorStarts[id] = authorRefCount;
+        for (String author : book.authorsView()) {
+            if (authorRefCount == authorRefs.length) {
+                authorRefs = Arrays.copyOf(authorRefs, authorRefs.length * 2);
+            }
+            authorRefs[authorRefCount++] = authorIdOf(author);
+        }
+        return id;
+    }
+
+    /**
+     * Materialise the book with the given id.
+     * @param id id of the book
+     * @return new book entry holding the data of the book, or null if it has been removed
+     * @throws IndexOutOfBoundsException if the id is not within the store
+     */
+    @Override
+    public BookEntry get(int id) {
+        if (!isLive(id)) {
+            return null;
+        }
+        int authorEnd = id + 1 < size ? authorStarts[id + 1] : authorRefCount;
+        String[] authors = new String[authorEnd - authorStarts[id]];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = authorNames[authorRefs[authorStarts[id] + i]];
+        }
+        return new BookEntry(titleAt(id), authors, ratings[id], isbnAt(id), pages[id]);
+    }
+
+    /**
+     * Has the book with the given id not been removed yet?
+     * @param id id of the book
+     * @return true if the book is still part of the store, false otherwise
+     * @throws IndexOutOfBoundsException if the id is not within the store
+     */
+    @Override
+    public boolean isLive(int id) {
+        Objects.checkIndex(id, size);
+        return !tombstones.isRemoved(id);
+    }
+
+    /**
+     * Decode the title of the book with the given id.
+     * @param id id of a book, which may have been removed
+     * @return title of the book
+     */
+    @Override
+    public String titleAt(int id) {
+        return new String(text, titleStarts[id], isbnStarts[id] - titleStarts[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode the lower case title of the book with the given id.
+     * @param id id of a live book
+     * @return lower case title of the book
+     */
+    @Override
+    public String titleKeyAt(int id) {
+        return titleAt(id).toLowerCase();
+    }
+
+    /**
+     * Decode the ISBN of the book with the given id.
+     * @param id id of a book, which may have been removed
+     * @return ISBN of the book
+     */
+    @Override
+    public String isbnAt(int id) {
+        int end = id + 1 < size ? titleStarts[id + 1] : textLength;
+        return new String(text, isbnStarts[id], end - isbnStarts[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the rating of the book with the given id from the rating column.
+     * @param id id of a live book
+     * @return rating of the book
+     */
+    @Override
+    public float ratingAt(int id) {
+        return ratings[id];
+    }
+
+    /**
+     * Get the page count of the book with the given id from the page count column.
+     * @param id id of a live book
+     * @return page count of the book
+     */
+    @Override
+    public int pagesAt(int id) {
+        return pages[id];
+    }
+
+    /**
+     * Get the number of authors of the book with the given id.
+     * @param id id of a live book
+     * @return number of authors of the book
+     */
+    @Override
+    public int authorCountAt(int id) {
+        return (id + 1 < size ? authorStarts[id + 1] : authorRefCount) - authorStarts[id];
+    }
+
+    /**
+     * Look up an author of the book with the given id in the author dictionary.
+     * @param id id of a live book
+     * @param index position of the author among the authors of the book
+     * @return author at the given position
+     */
+    @Override
+    public String authorAt(int id, int index) {
+        return authorNames[authorRefs[authorStarts[id] + index]];
+    }
+
+    /**
+     * Get the hash code of the book with the given id from the hash code column.
+     * @param id id of a live book
+     * @return hash code of the book
+     */
+    @Override
+    public int hashAt(int id) {
+        return hashes[id];
+    }
+
+    /**
+     * Mark the book with the given id as removed.
+     * @param id id of a live book
+     */
+    @Override
+    public void remove(int id) {
+        Objects.checkIndex(id, size);
+        tombstones.remove(id);
+    }
+
+    /**
+     * Get the number of slots, including tombstones.
+     * @return number of slots in the store
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of books that have not been removed.
+     * @return number of live books in the store
+     */
+    @Override
+    public int liveCount() {
+        return size - tombstones.count();
+    }
+
+    /**
+     * Copy the data of all live books into new columns, dropping the removed
+     * ones, and drop authors that are no longer referenced from the dictionary.
+     */
+    @Override
+    public void compact() {
+        float[] ratings = new float[this.ratings.length];
+        int[] pages = new int[this.pages.length];
+        int[] hashes = new int[this.hashes.length];
+        int[] titleStarts = new int[this.titleStarts.length];
+        int[] isbnStarts = new int[this.isbnStarts.length];
+        int[] authorStarts = new int[this.authorStarts.length];
+        byte[] text = new byte[this.text.length];
+        int[] authorRefs = new int[this.authorRefs.length];
+        int kept = 0;
+        int keptText = 0;
+        int keptRefs = 0;
+        for (int id = 0; id < size; id++) {
+            int textEnd = id + 1 < size ? this.titleStarts[id + 1] : textLength;
+            int refEnd = id + 1 < size ? this.authorStarts[id + 1] : authorRefCount;
+            if (tombstones.isRemoved(id)) {
+                continue;
+            }
+            int textStart = this.titleStarts[id];
+            int refStart = this.authorStarts[id];
+
+            ratings[kept] = this.ratings[id];
+            pages[kept] = this.pages[id];
+            hashes[kept] = this.hashes[id];
+            titleStarts[kept] = keptText;
+            isbnStarts[kept] = keptText + this.isbnStarts[id] - textStart;
+            authorStarts[kept] = keptRefs;
+            System.arraycopy(this.text, textStart, text, keptText, textEnd - textStart);
+            System.arraycopy(this.authorRefs, refStart, authorRefs, keptRefs, refEnd - refStart);
+            keptText += textEnd - textStart;
+            keptRefs += refEnd - refStart;
+            kept++;
+        }
+        this.ratings = ratings;
+        this.pages = pages;
+        this.hashes = hashes;
+        this.titleStarts = titleStarts;
+        this.isbnStarts = isbnStarts;
+        this.authorStarts = authorStarts;
+        this.text = text;
+        this.authorRefs = authorRefs;
+        size = kept;
+        textLength = keptText;
+        authorRefCount = keptRefs;
+        tombstones.clear();
+        compactAuthors();
+    }
+
+    /**
+     * Empty all columns and the author dictionary, starting over with new columns.
+     */
+    @Override
+    public void clear() {
+        tombstones.clear();
+        allocateColumns();
+    }
+
+    /**
+     * Take an immutable copy of the store, sharing the columns with this store.
+     * @return frozen copy of the store
+     */
+    @Override
+    public BookStore freeze() {
+        return new ColumnarBookStore(this);
+    }
+
+    /** Allocate new and empty columns and author dictionary at their initial capacity. */
+    private void allocateColumns() {
+        size = 0;
+        ratings = new float[INITIAL_CAPACITY];
+        pages = new int[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        titleStarts = new int[INITIAL_CAPACITY];
+        isbnStarts = new int[INITIAL_CAPACITY];
+        authorStarts = new int[INITIAL_CAPACITY];
+        text = new byte[INITIAL_TEXT_CAPACITY];
+        textLength = 0;
+        authorRefs = new int[INITIAL_CAPACITY];
+        authorRefCount = 0;
+        authorNames = new String[INITIAL_CAPACITY];
+        authorCount = 0;
+        authorIds = new HashMap<>();
+    }
+
+    /**
+     * Append the UTF-8 bytes of the given string to the text column.
+     * @param value string to be appended
+     * @throws IllegalStateException if the text column would exceed the maximum array size
+     */
+    private void appendText(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > text.length - textLength) {
+            long capacity = Math.max((long) text.length * 2, (long) textLength + bytes.length);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                if ((long) textLength + bytes.length > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Columnar store is full, the packed text exceeds "
+                            + (Integer.MAX_VALUE - 8) + " bytes.");
+                }
+                capacity = Integer.MAX_VALUE - 8;
+            }
+            text = Arrays.copyOf(text, (int) capacity);
+        }
+        System.arraycopy(bytes, 0, text, textLength, bytes.length);
+        textLength += bytes.length;
+    }
+
+    /**
+     * Look up the dictionary id of the given author, adding the author if needed.
+     * @param author name of the author
+     * @return dictionary id of the author
+     */
+    private int authorIdOf(String author) {
+        Integer id = authorIds.get(author);
+        if (id == null) {
+            if (authorCount == authorNames.length) {
+                authorNames = Arrays.copyOf(authorNames, authorNames.length * 2);
+            }
+            id = authorCount;
+            authorNames[authorCount++] = author;
+            authorIds.put(author, id);
+        }
+        return id;
+    }
+
+    /**
+     * Rebuild the author dictionary into a new array, keeping only authors that
+     * are still referenced. Must only be called on freshly compacted author references.
+     */
+    private void compactAuthors() {
+        int[] remap = new int[authorCount];
+        Arrays.fill(remap, -1);
+        String[] names = new String[Math.max(authorCount, INITIAL_CAPACITY)];
+        int nameCount = 0;
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < authorRefCount; i++) {
+            int oldId = authorRefs[i];
+            if (remap[oldId] < 0) {
+                remap[oldId] = nameCount;
+                names[nameCount++] = authorNames[oldId];
+                ids.put(authorNames[oldId], remap[oldId]);
+            }
+            authorRefs[i] = remap[oldId];
+        }
+        authorNames = names;
+        authorCount = nameCount;
+        authorIds = ids;
+    }
+
+    /** Grow all per book columns to hold more books. */
+    private void growColumns() {
+        int capacity = ratings.length * 2;
+        ratings = Arrays.copyOf(ratings, capacity);
+        pages = Arrays.copyOf(pages, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        titleStarts = Arrays.copyOf(titleStarts, capacity);
+        isbnStarts = Arrays.copyOf(isbnStarts, capacity);
+        authorStarts = Arrays.copyOf(authorStarts, capacity);
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Static factory for creating library commands.
@@ -22,8 +23,24 @@ public final class CommandFactory { // the final keyword prevents subclassing of
      * @throws NullPointerException If one of the given parameters is null.
      */
     public static LibraryCommand createCommand(CommandType cmdType, String argumentInput) {
+        return createCommand(cmdType, argumentInput, System.err::println);
+    }
+
+    /**
+     * Create library command for the given type and argument, reporting errors
+     * to the given sink instead of printing them right away.
+     * 
+     * @param cmdType Type of the command to be created
+     * @param argumentInput command argument to be used during initialisation of the command
+     * @param errorSink receives the error message if command creation fails
+     * @return Command of the given type initialised for the given argument. If command creation 
+     * failed due to an illegal argument, null will be returned.
+     * @throws NullPointerException If one of the given parameters is null.
+     */
+    public static LibraryCommand createCommand(CommandType cmdType, String argumentInput, Consumer<String> errorSink) {
         Objects.requireNonNull(cmdType, "Given command type must not be null.");
         Objects.requireNonNull(argumentInput, "Given argument input must not be null.");
+        Objects.requireNonNull(errorSink, "Given error sink must not be null.");
 
         try {
             switch(cmdType) {
@@ -32,14 +49,21 @@ public final class CommandFactory { // the final keyword prevents subclassing of
                 case ADD: return new AddCmd(argumentInput);
                 case LIST: return new ListCmd(argumentInput);
                 case SEARCH: return new SearchCmd(argumentInput);
+                case QUERY: return new QueryCmd(argumentInput);
+                case TOP: return new TopCmd(argumentInput);
                 case REMOVE: return new RemoveCmd(argumentInput);
                 case GROUP: return new GroupCmd(argumentInput);
+                case SAVE: return new SaveCmd(argumentInput);
+                case LOAD: return new LoadCmd(argumentInput);
+                case JOBS: return new JobsCmd(argumentInput);
+                case CANCEL: return new CancelCmd(argumentInput);
+                case STATS: return new StatsCmd(argumentInput);
 
                 default: throw new IllegalArgumentException("Command type not supported: " + cmdType);
 
             }
         } catch (IllegalArgumentException e) {
-            System.err.println("ERROR: " + e.getMessage());
+            errorSink.accept("ERROR: " + e.getMessage());
         }
 
         return null;
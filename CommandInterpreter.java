@@ -1,4 +1,5 @@
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Class responsible for creating library commands
@@ -9,9 +10,21 @@ public class CommandInterpreter {
     /** Delimiter between command keyword and corresponding argument. */
     private static final String COMMAND_ARGUMENT_DELIMITER = " ";
 
-    /** Create a CommandInterpreter instance. */
+    /** Output that executed commands write their results to. */
+    private final LibraryOutput output;
+
+    /** Create a CommandInterpreter instance writing command results to the standard output. */
     public CommandInterpreter() {
-        // nothing to do
+        this(LibraryOutput.standard());
+    }
+
+    /**
+     * Create a CommandInterpreter instance writing command results to the given output.
+     * @param output output that executed commands write their results to
+     * @throws NullPointerException If the given output is null.
+     */
+    public CommandInterpreter(LibraryOutput output) {
+        this.output = Objects.requireNonNull(output, "Given output must not be null.");
     }
 
     /**
@@ -24,7 +37,25 @@ public class CommandInterpreter {
      * @throws NullPointerException If the given input line is null.
      */
     public LibraryCommand parseCommand(String inputLine) {
+        return parseCommand(inputLine, System.err::println);
+    }
+
+    /**
+     * Parse given user input and create a corresponding library command,
+     * reporting errors to the given sink instead of printing them right away.
+     * This allows commands to be parsed ahead on another thread, while their
+     * errors are still reported in order.
+     * 
+     * @param inputLine The input is expected to be a single line starting with a command
+     * keyword followed by corresponding arguments.
+     * @param errorSink receives the error messages of failed command creation
+     * @return Command as specified in the given input line. If command creation 
+     * failed due to an illegal argument or command keyword, null will be returned.
+     * @throws NullPointerException If one of the given parameters is null.
+     */
+    public LibraryCommand parseCommand(String inputLine, Consumer<String> errorSink) {
         Objects.requireNonNull(inputLine, "Given input must not be null.");
+        Objects.requireNonNull(errorSink, "Given error sink must not be null.");
 
         // split command keyword from arguments
         int firstSpaceIdx = inputLine.indexOf(COMMAND_ARGUMENT_DELIMITER);
@@ -37,11 +68,14 @@ public class CommandInterpreter {
             argumentInput = inputLine.substring(firstSpaceIdx + 1);
         }
 
-        return setupCommand(commandInput, argumentInput);
+        return setupCommand(commandInput, argumentInput, errorSink);
     }
 
     /**
-     * Execute the given command.
+     * Execute the given command. Its results are written to the output
+     * of this interpreter, which is flushed once the command is done.
+     * The latency, touched rows and allocations of the execution, including
+     * the flush, are recorded in the {@link CommandStats} of the library.
      * 
      * @param command Command to be executed.
      * @param data book data to be considered for command execution.
@@ -51,22 +85,31 @@ public class CommandInterpreter {
         Objects.requireNonNull(command, "Given command must not be null.");
         Objects.requireNonNull(data, "Given data must not be null.");
 
-        command.execute(data);
+        CommandStats stats = data.getCommandStats();
+        long allocatedBefore = stats.allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            command.execute(data, output);
+        } finally {
+            output.flush();
+            stats.record(command.getType(), System.nanoTime() - start, command.getRowsTouched(), allocatedBefore);
+        }
     }
 
     /**
      * Create a command from given keyword and argument input.
      * @param commandInput command keyword
      * @param argumentInput command argument
+     * @param errorSink receives the error messages of failed command creation
      * @return Command as specified in the given input line. If command creation 
      * failed due to an illegal argument or command keyword, null will be returned.
      */
-    private LibraryCommand setupCommand(String commandInput, String argumentInput) {
+    private LibraryCommand setupCommand(String commandInput, String argumentInput, Consumer<String> errorSink) {
 
         CommandType cmdType = parseCommandType(commandInput);
         LibraryCommand command = null;
         if (cmdType != null) {
-            command = CommandFactory.createCommand(cmdType, argumentInput);
+            command = CommandFactory.createCommand(cmdType, argumentInput, errorSink);
         }
 
         return command;
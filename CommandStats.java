@@ -0,0 +1,164 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics of the commands run on a library, per {@link CommandType}:
+ * the number of executions, a {@link LatencyHistogram} of their latencies, and
+ * the rows they touched and bytes they allocated in total.
+ *
+ * Recording is lock-free, so the statistics are always collected and can be
+ * shared by all sessions of a library. Allocations are measured through the
+ * allocation counter of the executing thread, where the JVM supports it, and
+ * so do not include work handed to other threads, such as background imports.
+ */
+public final class CommandStats {
+
+    /** Number of nanoseconds per millisecond*/
+    private static final double NANOS_PER_MILLI = 1e6;
+    /** Header line of exported statistics*/
+    private static final String EXPORT_HEADER = "command,count,rows,allocated_bytes,mean_ms,p50_ms,p90_ms,p99_ms,max_ms";
+
+    /** Statistics of each command type. */
+    private final Map<CommandType, Entry> entries;
+    /** Source of per thread allocation counters, or null if the JVM does not provide them. */
+    private final com.sun.management.ThreadMXBean allocations;
+
+    /** Create empty statistics for all command types. */
+    public CommandStats() {
+        entries = new EnumMap<>(CommandType.class);
+        for (CommandType type : CommandType.values()) {
+            entries.put(type, new Entry());
+        }
+        allocations = allocationCounters();
+    }
+
+    /**
+     * Read the number of bytes allocated by the current thread so far, for use
+     * as the starting point of {@link #record}.
+     * @return allocated bytes, or -1 if allocations are not measured
+     */
+    public long allocatedBytes() {
+        return allocations == null ? -1 : allocations.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Record one execution of a command on the current thread.
+     * @param type type of the executed command
+     * @param nanos latency of the execution in nanoseconds
+     * @param rows number of rows the command touched
+     * @param allocatedBefore value of {@link #allocatedBytes()} before the execution
+     * @throws NullPointerException if the given type is null
+     */
+    public void record(CommandType type, long nanos, long rows, long allocatedBefore) {
+        Entry entry = entries.get(Objects.requireNonNull(type, "Given command type must not be null."));
+        entry.latencies.record(nanos);
+        entry.rows.add(rows);
+        if (allocatedBefore >= 0) {
+            entry.allocatedBytes.add(allocatedBytes() - allocatedBefore);
+        }
+    }
+
+    /**
+     * Write one line of statistics per command type that has been executed.
+     * @param out output the statistics are written to
+     * @throws NullPointerException if the given output is null
+     */
+    public void print(LibraryOutput out) {
+        Objects.requireNonNull(out, "Given output must not be null.");
+
+        boolean any = false;
+        for (Map.Entry<CommandType, Entry> entry : entries.entrySet()) {
+            LatencyHistogram latencies = entry.getValue().latencies;
+            if (latencies.getCount() == 0) {
+                continue;
+            }
+            if (!any) {
+                out.println("Command statistics (latencies in ms):");
+                any = true;
+            }
+            out.println(String.format(Locale.ROOT,
+                    "  %-7s count %d  rows %d  alloc %.1f MB  mean %.3f  p50 %.3f  p90 %.3f  p99 %.3f  max %.3f",
+                    entry.getKey(), latencies.getCount(), entry.getValue().rows.sum(),
+                    entry.getValue().allocatedBytes.sum() / 1e6, latencies.getMean() / NANOS_PER_MILLI,
+                    millis(latencies.valueAtPercentile(50)), millis(latencies.valueAtPercentile(90)),
+                    millis(latencies.valueAtPercentile(99)), millis(latencies.getMax())));
+        }
+        if (!any) {
+            out.println("No commands have been executed.");
+        }
+    }
+
+    /**
+     * Export the statistics of all command types as CSV, replacing the file if it exists.
+     * @param file path of the exported file
+     * @throws IOException if writing the file fails
+     * @throws NullPointerException if the given path is null
+     */
+    public void export(Path file) throws IOException {
+        Objects.requireNonNull(file, "Given file path must not be null.");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(EXPORT_HEADER);
+            writer.newLine();
+            for (Map.Entry<CommandType, Entry> entry : entries.entrySet()) {
+                LatencyHistogram latencies = entry.getValue().latencies;
+                writer.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f",
+                        entry.getKey(), latencies.getCount(), entry.getValue().rows.sum(),
+                        entry.getValue().allocatedBytes.sum(), latencies.getMean() / NANOS_PER_MILLI,
+                        millis(latencies.valueAtPercentile(50)), millis(latencies.valueAtPercentile(90)),
+                        millis(latencies.valueAtPercentile(99)), millis(latencies.getMax())));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Convert nanoseconds to milliseconds.
+     * @param nanos duration in nanoseconds
+     * @return duration in milliseconds
+     */
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Get the per thread allocation counters of the JVM, enabling them if needed.
+     * @return allocation counters, or null if the JVM does not provide them
+     */
+    private static com.sun.management.ThreadMXBean allocationCounters() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean counters = (com.sun.management.ThreadMXBean) threads;
+        if (!counters.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        try {
+            counters.setThreadAllocatedMemoryEnabled(true);
+        } catch (SecurityException | UnsupportedOperationException e) {
+            return null;
+        }
+        return counters;
+    }
+
+    /** Statistics of a single command type. */
+    private static final class Entry {
+        /** Latencies of all executions. */
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        /** Rows touched by all executions. */
+        private final LongAdder rows = new LongAdder();
+        /** Bytes allocated by all executions. */
+        private final LongAdder allocatedBytes = new LongAdder();
+    }
+}
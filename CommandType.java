@@ -4,7 +4,14 @@ public enum CommandType {
     EXIT,
     ADD,
     SEARCH,
+    QUERY,
+    TOP,
     LIST,
     REMOVE,
-    GROUP
+    GROUP,
+    SAVE,
+    LOAD,
+    JOBS,
+    CANCEL,
+    STATS
 }
@@ -19,10 +19,18 @@ public class ExitCmd extends LibraryCommand {
      * required for the exit command and does nothing.
      *
      * @param data book data to be considered for command execution.
+     * @param out output the command results are written to.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, LibraryOutput out) {
         // nothing to do here
     }
-    
+
+    /** The exit command only reads the book data.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
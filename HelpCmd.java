@@ -24,10 +24,11 @@ public class HelpCmd extends LibraryCommand {
      * and corresponding usage to the console.
      *
      * @param data book data to be considered for command execution.
+     * @param out output the help text is written to.
      */    
     @Override
-    public void execute(LibraryData data) {       
-        System.out.println(helpOutput);
+    public void execute(LibraryData data, LibraryOutput out) {       
+        out.println(helpOutput);
     }
 
     private String buildHelpOutput() {
@@ -36,13 +37,27 @@ public class HelpCmd extends LibraryCommand {
 
         bld.append(padding).append(CommandType.HELP);
         bld.append(padding).append(CommandType.EXIT);
-        bld.append(padding).append(CommandType.ADD).append(" path/to/book/data.csv");
+        bld.append(padding).append(CommandType.ADD).append(" path/to/book/data.csv [background]");
         bld.append(padding).append(CommandType.LIST).append(" [short|long]");
         bld.append(padding).append(CommandType.SEARCH).append(" <value>");
+        bld.append(padding).append(CommandType.QUERY).append(" <field><op><value> [AND|OR ...]");
+        bld.append(padding).append(CommandType.TOP).append(" <count> RATING|PAGES [<query>]");
         bld.append(padding).append(CommandType.REMOVE).append(" TITLE|AUTHOR <value>");
         bld.append(padding).append(CommandType.GROUP).append(" TITLE|AUTHOR");
+        bld.append(padding).append(CommandType.SAVE).append(" path/to/library.snapshot");
+        bld.append(padding).append(CommandType.LOAD).append(" path/to/library.snapshot");
+        bld.append(padding).append(CommandType.JOBS);
+        bld.append(padding).append(CommandType.CANCEL).append(" <job number>");
+        bld.append(padding).append(CommandType.STATS).append(" [path/to/stats.csv]");
 
         return bld.toString();
     }
-    
+
+    /** The help command only reads the book data.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
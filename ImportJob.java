@@ -0,0 +1,182 @@
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of adding the books of one book data file to a library, which
+ * may be running in the background and can be cancelled.
+ *
+ * The counters are updated by the thread running the import after each
+ * merged batch, and may be read by any other thread at any time.
+ */
+public final class ImportJob {
+
+    /** States of an import. */
+    public enum State {
+        RUNNING,
+        DONE,
+        FAILED,
+        CANCELLED
+    }
+
+    /** Number of the job within its library, counting from one. */
+    private final int number;
+    /** Path of the imported book data file. */
+    private final Path file;
+    /** Value of {@link System#nanoTime()} when the import started. */
+    private final long startNanos;
+    /** Value of {@link System#nanoTime()} when the import ended, or 0 while it is running. */
+    private volatile long endNanos;
+    /** Number of rows parsed from the file so far. */
+    private final AtomicLong rowsParsed;
+    /** Number of books added to the library so far. */
+    private final AtomicLong booksAdded;
+    /** Number of duplicate rows discarded so far. */
+    private final AtomicLong duplicates;
+    /** Has cancelling the import been requested? */
+    private volatile boolean cancelRequested;
+    /** Current state of the import. */
+    private volatile State state;
+
+    /**
+     * Create a running import of the given file.
+     * @param number number of the job within its library
+     * @param file path of the imported book data file
+     * @throws NullPointerException if the given path is null
+     */
+    public ImportJob(int number, Path file) {
+        this.number = number;
+        this.file = Objects.requireNonNull(file, "Given file path must not be null.");
+        this.startNanos = System.nanoTime();
+        this.rowsParsed = new AtomicLong();
+        this.booksAdded = new AtomicLong();
+        this.duplicates = new AtomicLong();
+        this.state = State.RUNNING;
+    }
+
+    /**
+     * Get the number of the job within its library.
+     * @return job number, counting from one
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Get the imported file.
+     * @return path of the imported book data file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Get the current state of the import.
+     * @return current state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Get the number of rows parsed from the file so far.
+     * @return number of parsed rows
+     */
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    /**
+     * Get the number of books added to the library so far.
+     * @return number of added books
+     */
+    public long getBooksAdded() {
+        return booksAdded.get();
+    }
+
+    /**
+     * Get the number of duplicate rows discarded so far.
+     * @return number of duplicates
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * Get the time the import has been running for, or took in total once it ended.
+     * @return elapsed time in seconds
+     */
+    public double getElapsedSeconds() {
+        long end = endNanos;
+        return ((end == 0 ? System.nanoTime() : end) - startNanos) / 1e9;
+    }
+
+    /**
+     * Get the average number of rows parsed per second.
+     * @return parse throughput in rows per second
+     */
+    public double getRowsPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return elapsed > 0 ? getRowsParsed() / elapsed : 0;
+    }
+
+    /**
+     * Request the import to stop before its next batch is merged. Batches
+     * merged before remain in the library.
+     * @return true if the import was still running, false otherwise
+     */
+    public boolean cancel() {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    /**
+     * Has cancelling the import been requested?
+     * @return true if the import should stop, false otherwise
+     */
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Record a batch of rows parsed from the file.
+     * @param rows number of rows in the batch
+     */
+    void parsed(int rows) {
+        rowsParsed.addAndGet(rows);
+    }
+
+    /**
+     * Record the outcome of merging a batch into the library.
+     * @param added number of books added
+     * @param discarded number of duplicate rows discarded
+     */
+    void merged(int added, int discarded) {
+        booksAdded.addAndGet(added);
+        duplicates.addAndGet(discarded);
+    }
+
+    /**
+     * End the import.
+     * @param success true if the whole file has been read, false otherwise
+     */
+    void finish(boolean success) {
+        endNanos = System.nanoTime();
+        state = success ? State.DONE : cancelRequested ? State.CANCELLED : State.FAILED;
+    }
+
+    /**
+     * Describe the progress of the import on a single line.
+     * @return job number, state, file and counters
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "[%d] %s %s: %d rows parsed, %d books added, %d duplicates, %.0f rows/s, %.1f s",
+                number, state, file, getRowsParsed(), getBooksAdded(), getDuplicates(),
+                getRowsPerSecond(), getElapsedSeconds());
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for the book id posting lists of the
+ * library indexes. Avoids boxing every id into an Integer.
+ *
+ * Values are only ever appended, so a list can hand out views of its current
+ * values that share its array: appending writes behind the end of every view,
+ * and growing moves the list to a new array. The list publishes such a view
+ * with {@link #publish()} for other threads to read through {@link #published()},
+ * while it keeps changing.
+ */
+public final class IntList {
+
+    /** Capacity of a new list if none is given*/
+    private static final int DEFAULT_CAPACITY = 4;
+    /** Empty view, which is shared as it never changes*/
+    private static final IntList EMPTY = new IntList(new int[0], 0);
+
+    /** Backing array holding the values, only the first {@link #size} are in use. */
+    private int[] values;
+    /** Number of values in the list. */
+    private int size;
+    /** View of the values as of the last {@link #publish()}, or null if the list has never been published. */
+    private volatile IntList published;
+
+    /** Create a new and empty list. */
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new and empty list with the given initial capacity.
+     * @param capacity initial capacity of the list
+     * @throws IllegalArgumentException if the given capacity is negative
+     */
+    public IntList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Given capacity must not be negative, but it is: " + capacity);
+        }
+        values = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Create a view of the given values, sharing the array.
+     * @param values array holding the values, which is never changed below the given size
+     * @param size number of values in the view
+     */
+    private IntList(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Append a value to the end of the list.
+     * @param value value to be appended
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(DEFAULT_CAPACITY, values.length * 2));
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Get the value at the given position.
+     * @param index position of the value
+     * @return value at the given position
+     * @throws IndexOutOfBoundsException if the index is not within the list
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Get the number of values in the list.
+     * @return number of values in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Is the list empty?
+     * @return true if the list holds no values, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the last value of the list.
+     * @return last value of the list
+     * @throws IndexOutOfBoundsException if the list is empty
+     */
+    public int last() {
+        return get(size - 1);
+    }
+
+    /**
+     * Has every value of the list been published by {@link #publish()}?
+     * @return true if the last published view holds all values, false otherwise
+     */
+    public boolean isPublished() {
+        IntList view = published;
+        return view == null ? size == 0 : view.size == size;
+    }
+
+    /**
+     * Publish a view of the current values, which is read through {@link #published()}.
+     * The view is not affected by values appended later.
+     */
+    public void publish() {
+        published = new IntList(values, size);
+    }
+
+    /**
+     * Get the view of the values as of the last {@link #publish()}. May be
+     * called by any thread, while the list is changed by another one.
+     * @return unmodifiable view of the published values, which is empty if the list has never been published
+     */
+    public IntList published() {
+        IntList view = published;
+        return view == null ? EMPTY : view;
+    }
+
+    /**
+     * Get the leading values of an ascending list that are below the given bound.
+     * @param bound value all returned values are below
+     * @return this list if all values are below the bound, otherwise an unmodifiable view of the leading values
+     */
+    public IntList headBelow(int bound) {
+        if (size == 0 || values[size - 1] < bound) {
+            return this;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < bound) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return new IntList(values, low);
+    }
+
+    /**
+     * Intersect two lists sorted in ascending order.
+     * @param first first sorted list
+     * @param second second sorted list
+     * @return new sorted list holding the values contained in both lists
+     */
+    public static IntList intersect(IntList first, IntList second) {
+        IntList result = new IntList(Math.min(first.size, second.size));
+        int i = 0;
+        int j = 0;
+        while (i < first.size && j < second.size) {
+            int a = first.values[i];
+            int b = second.values[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                result.add(a);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Jobs command that shows the progress of all imports of book data files started on the library,
+ * including the ones running in the background.
+ */
+public class JobsCmd extends LibraryCommand {
+
+    /**
+     * Create a jobs command.
+     * 
+     * @param argumentInput argument input is expected to be blank
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public JobsCmd(String argumentInput) {
+        super(CommandType.JOBS, argumentInput);
+    }
+
+    /**
+     * Execute the jobs command. This prints one line per import with its state,
+     * rows parsed, books added, duplicates and throughput.
+     *
+     * @param data book data to be considered for command execution.
+     * @param out output the progress is written to.
+     * @throws NullPointerException if the {@link LibraryData} data is null.
+     */
+    @Override
+    public void execute(LibraryData data, LibraryOutput out) {
+        Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
+
+        List<ImportJob> jobs = data.getImports();
+        if (jobs.isEmpty()){
+            out.println("No book data files have been added.");
+        }
+        else{
+            for (ImportJob job : jobs){
+                out.println(job.toString());
+            }
+        }
+    }
+
+    /** The jobs command only reads the book data.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with a bounded relative error, in the
+ * style of an HDR histogram.
+ *
+ * Values below {@value #LINEAR_LIMIT} have a bucket each. Above, every power of
+ * two is split into {@value #SUB_BUCKETS} equally wide buckets, so a value is
+ * reported at most about 6% above its actual value, while all positive long
+ * values fit into less than a thousand buckets. Recording only increments a
+ * few counters without locking, so the histogram can stay enabled all the
+ * time and be recorded into from any number of threads.
+ */
+public final class LatencyHistogram {
+
+    /** Number of bits of a value kept below its highest one bit*/
+    private static final int SUB_BUCKET_BITS = 4;
+    /** Number of buckets every power of two is split into*/
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Values below this limit have a bucket of their own*/
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    /** Number of buckets needed to cover all non-negative long values*/
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** Number of recorded values per bucket. */
+    private final AtomicLongArray buckets;
+    /** Number of recorded values. */
+    private final LongAdder count;
+    /** Sum of all recorded values. */
+    private final LongAdder sum;
+    /** Largest recorded value. */
+    private final AtomicLong max;
+
+    /** Create an empty histogram. */
+    public LatencyHistogram() {
+        buckets = new AtomicLongArray(BUCKET_COUNT);
+        count = new LongAdder();
+        sum = new LongAdder();
+        max = new AtomicLong();
+    }
+
+    /**
+     * Record a latency.
+     * @param nanos latency in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Get the number of recorded latencies.
+     * @return number of recorded latencies
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Get the mean of the recorded latencies.
+     * @return mean latency in nanoseconds, or 0 if none has been recorded
+     */
+    public double getMean() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) sum.sum() / recorded;
+    }
+
+    /**
+     * Get the largest recorded latency.
+     * @return largest latency in nanoseconds, or 0 if none has been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the latency the given percentage of the recorded latencies does not exceed.
+     * @param percentile percentage between 0 and 100
+     * @return highest latency in nanoseconds of the bucket holding the percentile,
+     * but at most the largest recorded latency, or 0 if none has been recorded
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100
+     */
+    public long valueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100, but is " + percentile);
+        }
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Determine the bucket of a value.
+     * @param value non-negative value
+     * @return index of the bucket counting the value
+     */
+    private static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Determine the highest value counted by a bucket.
+     * @param bucket index of the bucket
+     * @return highest value of the bucket
+     */
+    private static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lowest = (SUB_BUCKETS + bucket % SUB_BUCKETS) * width;
+        return lowest + width - 1;
+    }
+}
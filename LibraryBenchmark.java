@@ -0,0 +1,376 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Benchmark harness for the load, search, group, list and remove paths of the
+ * library browser, running without any dependencies beyond the JDK.
+ *
+ * For each requested library size, a synthetic catalogue in the shape of
+ * books03.csv is generated with a fixed seed. The commands are then executed
+ * like in the browser, writing their output to a discarding
+ * {@link LibraryOutput}, so rendering is measured as well. Every benchmark runs
+ * {@value #WARMUP_ITERATIONS} warm-up iterations followed by
+ * {@value #MEASURED_ITERATIONS} measured ones, and reports the mean and minimum
+ * time per operation, the bytes allocated per operation on all threads and
+ * the number and duration of garbage collections.
+ *
+ * Usage: {@code java LibraryBenchmark [--columnar] [size ...]}, where the sizes
+ * default to {@value #DEFAULT_SIZES}. Libraries of a million books and more
+ * need a correspondingly large heap, for example -Xmx8g for ten million.
+ */
+public final class LibraryBenchmark {
+
+    /** Argument selecting the columnar book store*/
+    private static final String COLUMNAR_ARG = "--columnar";
+    /** Library sizes benchmarked if none are given*/
+    private static final String DEFAULT_SIZES = "10000 100000 1000000";
+    /** Number of iterations run before measuring, to let the JIT compile the measured paths*/
+    private static final int WARMUP_ITERATIONS = 3;
+    /** Number of measured iterations per benchmark*/
+    private static final int MEASURED_ITERATIONS = 5;
+    /** Seed of the synthetic catalogues, so that runs are comparable*/
+    private static final long SEED = 42;
+    /** Number of titles removed per REMOVE TITLE iteration*/
+    private static final int TITLES_PER_REMOVAL = 100;
+    /** Number of authors removed per REMOVE AUTHOR iteration*/
+    private static final int AUTHORS_PER_REMOVAL = 10;
+    /** Syllables the synthetic words and names are composed of*/
+    private static final String[] SYLLABLES = {
+        "an", "bel", "cor", "da", "el", "fa", "gor", "ha", "is", "jo", "ka", "li", "mar", "nor", "o",
+        "pe", "qui", "ra", "sil", "ta", "ul", "ve", "wyn", "xa", "yo", "zen", "the", "ing", "ber", "ston"
+    };
+    /** Search terms: a frequent word, a trigram-indexed rare term, a short term scanning all books and a miss*/
+    private static final String[] SEARCH_TERMS = {"the", "marnor", "ka", "zzzz"};
+
+    /** Not to be used. */
+    private LibraryBenchmark() {
+        throw new UnsupportedOperationException("This constructor should never be used.");
+    }
+
+    /**
+     * Run the benchmarks.
+     * @param args optionally {@value #COLUMNAR_ARG} to benchmark the columnar book store,
+     * followed by the library sizes to be benchmarked
+     * @throws IOException if a synthetic catalogue cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        boolean columnar = false;
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            if (COLUMNAR_ARG.equals(arg)) {
+                columnar = true;
+            } else {
+                sizes.add(Integer.parseInt(arg));
+            }
+        }
+        if (sizes.isEmpty()) {
+            for (String size : DEFAULT_SIZES.split(" ")) {
+                sizes.add(Integer.parseInt(size));
+            }
+        }
+
+        System.out.println("Benchmarking the " + (columnar ? "columnar" : "object") + " book store on "
+                + Runtime.getRuntime().availableProcessors() + " processors.");
+        for (int size : sizes) {
+            Path catalogue = Files.createTempFile("library-benchmark-" + size + "-", ".csv");
+            try {
+                generateCatalogue(catalogue, size);
+                runSuite(catalogue, size, columnar);
+            } finally {
+                Files.deleteIfExists(catalogue);
+            }
+        }
+    }
+
+    /**
+     * Run all benchmarks on one synthetic catalogue.
+     * @param catalogue path of the catalogue
+     * @param size number of rows of the catalogue
+     * @param columnar true to use the columnar book store
+     */
+    private static void runSuite(Path catalogue, int size, boolean columnar) {
+        LibraryOutput out = discardingOutput();
+        String add = catalogue.toString();
+
+        report(size, "ADD", size, measure(iteration -> execute(CommandType.ADD, add, newLibrary(columnar), out)));
+
+        LibraryData data = newLibrary(columnar);
+        execute(CommandType.ADD, add, data, out);
+        int books = data.size();
+        for (String term : SEARCH_TERMS) {
+            report(size, "SEARCH " + term, 0, measure(iteration -> execute(CommandType.SEARCH, term, data, out)));
+        }
+        report(size, "GROUP TITLE", 0, measure(iteration -> execute(CommandType.GROUP, "TITLE", data, out)));
+        report(size, "GROUP AUTHOR", 0, measure(iteration -> execute(CommandType.GROUP, "AUTHOR", data, out)));
+        report(size, "LIST short", books, measure(iteration -> execute(CommandType.LIST, "short", data, out)));
+        report(size, "LIST long", books, measure(iteration -> execute(CommandType.LIST, "long", data, out)));
+
+        List<BookEntry> sample = data.getBookData();
+        int stride = Math.max(1, sample.size() / (TITLES_PER_REMOVAL * (WARMUP_ITERATIONS + MEASURED_ITERATIONS)));
+        Measurement removeTitles = measure(iteration -> {
+            int first = iteration * TITLES_PER_REMOVAL;
+            for (int i = first; i < first + TITLES_PER_REMOVAL; i++) {
+                execute(CommandType.REMOVE, "TITLE " + sample.get(Math.min(i * stride, sample.size() - 1)).getTitle(), data, out);
+            }
+        });
+        report(size, "REMOVE TITLE x" + TITLES_PER_REMOVAL, TITLES_PER_REMOVAL, removeTitles);
+
+        List<String> authors = new ArrayList<>();
+        data.forEachAuthorGroup((author, titles) -> authors.add(author));
+        int authorStride = Math.max(1, authors.size() / (AUTHORS_PER_REMOVAL * (WARMUP_ITERATIONS + MEASURED_ITERATIONS)));
+        Measurement removeAuthors = measure(iteration -> {
+            int first = iteration * AUTHORS_PER_REMOVAL;
+            for (int i = first; i < first + AUTHORS_PER_REMOVAL; i++) {
+                execute(CommandType.REMOVE, "AUTHOR " + authors.get(Math.min(i * authorStride, authors.size() - 1)), data, out);
+            }
+        });
+        report(size, "REMOVE AUTHOR x" + AUTHORS_PER_REMOVAL, AUTHORS_PER_REMOVAL, removeAuthors);
+    }
+
+    /**
+     * Create an empty library.
+     * @param columnar true to use the columnar book store
+     * @return new library
+     */
+    private static LibraryData newLibrary(boolean columnar) {
+        return new LibraryData(columnar ? new ColumnarBookStore() : new ObjectBookStore());
+    }
+
+    /**
+     * Create and execute a command like the browser does.
+     * @param type type of the command
+     * @param argument argument of the command
+     * @param data library the command is executed on
+     * @param out output the command writes to
+     * @throws IllegalArgumentException if the argument is invalid
+     */
+    private static void execute(CommandType type, String argument, LibraryData data, LibraryOutput out) {
+        LibraryCommand command = CommandFactory.createCommand(type, argument);
+        if (command == null) {
+            throw new IllegalArgumentException("Invalid benchmark command: " + type + " " + argument);
+        }
+        command.execute(data, out);
+        out.flush();
+    }
+
+    /**
+     * Create an output that encodes everything written to it and then discards it.
+     * @return discarding output
+     */
+    private static LibraryOutput discardingOutput() {
+        return new LibraryOutput(Channels.newChannel(OutputStream.nullOutputStream()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Run the warm-up and measured iterations of a benchmark.
+     * @param operation operation to be measured, receiving the number of the iteration counting from zero
+     * @return measurement of the measured iterations
+     */
+    private static Measurement measure(IntConsumer operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.accept(i);
+        }
+        System.gc();
+
+        Measurement measurement = new Measurement();
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long allocated = allocatedBytes();
+        for (int i = WARMUP_ITERATIONS; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            operation.accept(i);
+            measurement.addTime(System.nanoTime() - start);
+        }
+        measurement.allocatedBytes = allocated < 0 ? -1 : (allocatedBytes() - allocated) / MEASURED_ITERATIONS;
+        measurement.gcCount = gcCount() - gcCount;
+        measurement.gcMillis = gcMillis() - gcMillis;
+        return measurement;
+    }
+
+    /**
+     * Print one line with the results of a benchmark.
+     * @param size size of the catalogue
+     * @param name name of the benchmark
+     * @param items number of items an iteration processes, used for the throughput, or 0 to omit it
+     * @param measurement measurement of the benchmark
+     */
+    private static void report(int size, String name, int items, Measurement measurement) {
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%,10d %-22s mean %10.3f ms  min %10.3f ms",
+                size, name, measurement.meanNanos() / 1e6, measurement.minNanos / 1e6));
+        if (items > 0) {
+            line.append(String.format(Locale.ROOT, "  %,12.0f items/s", items * 1e9 / measurement.meanNanos()));
+        }
+        if (measurement.allocatedBytes >= 0) {
+            line.append(String.format(Locale.ROOT, "  alloc %10.2f MB/op", measurement.allocatedBytes / 1e6));
+        }
+        line.append(String.format(Locale.ROOT, "  gc %d (%d ms)", measurement.gcCount, measurement.gcMillis));
+        System.out.println(line);
+    }
+
+    /**
+     * Sum the bytes allocated so far by all live threads.
+     * @return allocated bytes, or -1 if the JVM does not track allocations per thread
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : allocations.getThreadAllocatedBytes(allocations.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sum the number of collections of all garbage collectors so far.
+     * @return number of collections
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Sum the time spent by all garbage collectors so far.
+     * @return collection time in milliseconds
+     */
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Write a synthetic catalogue in the shape of books03.csv: a header line followed
+     * by rows of title, authors separated by '-', rating, ISBN and page count.
+     *
+     * Titles consist of one to six synthetic words, and authors are drawn with a
+     * skew from a pool of a quarter as many names as rows, so that some authors have
+     * many books. About one row in a hundred repeats an earlier row, to exercise
+     * duplicate detection.
+     *
+     * @param file path the catalogue is written to
+     * @param size number of rows
+     * @throws IOException if writing the file fails
+     */
+    private static void generateCatalogue(Path file, int size) throws IOException {
+        Random random = new Random(SEED);
+        String[] authors = new String[Math.max(100, size / 4)];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = capitalize(word(random, 2)) + " " + capitalize(word(random, 3));
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("title,authors,average_rating,isbn,# num_pages");
+            writer.newLine();
+            String previous = null;
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                if (previous != null && random.nextInt(100) == 0) {
+                    writer.write(previous);
+                    writer.newLine();
+                    continue;
+                }
+                row.setLength(0);
+                int words = 1 + random.nextInt(6);
+                for (int w = 0; w < words; w++) {
+                    row.append(w == 0 ? "" : " ").append(capitalize(word(random, 1 + random.nextInt(3))));
+                }
+                row.append(',');
+                int authorCount = random.nextInt(20) == 0 ? 3 : random.nextInt(6) == 0 ? 2 : 1;
+                for (int a = 0; a < authorCount; a++) {
+                    double skewed = random.nextDouble();
+                    row.append(a == 0 ? "" : "-").append(authors[(int) (skewed * skewed * authors.length)]);
+                }
+                row.append(String.format(Locale.ROOT, ",%.2f,%d,%d",
+                        1 + 4 * random.nextDouble(), 100000000L + i, 50 + random.nextInt(1200)));
+                previous = row.toString();
+                writer.write(previous);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Compose a lower case word of random syllables.
+     * @param random source of randomness
+     * @param syllables number of syllables
+     * @return synthetic word
+     */
+    private static String word(Random random, int syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    /**
+     * Upper case the first letter of a word.
+     * @param word non-empty word
+     * @return capitalized word
+     */
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    /** Timing and allocation results of the measured iterations of one benchmark. */
+    private static final class Measurement {
+        /** Sum of the durations of all measured iterations in nanoseconds. */
+        private long totalNanos;
+        /** Number of measured iterations. */
+        private int iterations;
+        /** Duration of the fastest measured iteration in nanoseconds. */
+        private long minNanos = Long.MAX_VALUE;
+        /** Bytes allocated per iteration on all threads, or -1 if unknown. */
+        private long allocatedBytes;
+        /** Number of garbage collections during the measured iterations. */
+        private long gcCount;
+        /** Time spent in garbage collection during the measured iterations in milliseconds. */
+        private long gcMillis;
+
+        /**
+         * Record the duration of a measured iteration.
+         * @param nanos duration in nanoseconds
+         */
+        private void addTime(long nanos) {
+            totalNanos += nanos;
+            iterations++;
+            minNanos = Math.min(minNanos, nanos);
+        }
+
+        /**
+         * Get the mean duration of the measured iterations.
+         * @return mean duration in nanoseconds
+         */
+        private double meanNanos() {
+            return (double) totalNanos / iterations;
+        }
+    }
+}
@@ -1,4 +1,12 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * The main library browser module which 
@@ -17,11 +25,24 @@ public class LibraryBrowser {
      */
     private final Scanner stdInScan;
 
+    /** Maximum number of parsed commands waiting to be executed in batch mode*/
+    private static final int BATCH_QUEUE_CAPACITY = 1024;
+
     /**
      * Create library browser.
      */
     public LibraryBrowser() {
-        data = new LibraryData();
+        this(new LibraryData());
+    }
+
+    /**
+     * Create library browser working on the given library.
+     * @param data library the commands are executed on
+     * @throws NullPointerException if the given library is null
+     */
+    public LibraryBrowser(LibraryData data) {
+        Objects.requireNonNull(data, "Given library data must not be null.");
+        this.data = data;
         cmdIntrp = new CommandInterpreter();
         stdInScan = new Scanner(System.in);
     }
@@ -32,6 +53,75 @@ public class LibraryBrowser {
         stdInScan.close();
     }
 
+    /**
+     * Run the library browser non-interactively on the commands of the given script.
+     * 
+     * No prompts are printed. The script is read and parsed into commands on a
+     * separate thread, at most {@value #BATCH_QUEUE_CAPACITY} commands ahead,
+     * while the commands read before are executed. Commands are still executed
+     * and their errors reported strictly in script order. The run ends with an
+     * {@link CommandType#EXIT} command or at the end of the script.
+     * 
+     * @param script reader of the command script, one command per line
+     * @throws NullPointerException if the given script is null
+     */
+    public void runBatch(BufferedReader script) {
+        Objects.requireNonNull(script, "Given script must not be null.");
+
+        BlockingQueue<ParsedLine> queue = new ArrayBlockingQueue<>(BATCH_QUEUE_CAPACITY);
+        Thread parser = new Thread(() -> parseScript(script, queue), "batch-parser");
+        parser.setDaemon(true);
+        parser.start();
+        try {
+            while (true) {
+                ParsedLine line = queue.take();
+                if (line.input == null) {
+                    if (line.errors != null) {
+                        line.errors.forEach(System.err::println);
+                    }
+                    break;
+                }
+                line.errors.forEach(System.err::println);
+                if (line.command == null) {
+                    System.err.println("ERROR: Given command input is invalid: " + line.input);
+                } else if (line.command instanceof ExitCmd) {
+                    break;
+                } else {
+                    cmdIntrp.executeCommand(line.command, data);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            parser.interrupt();
+        }
+    }
+
+    /**
+     * Read and parse all lines of the given script into the given queue, on the parser thread
+     * of {@link #runBatch(BufferedReader)}. The end of the script is marked by a line without input.
+     * @param script reader of the command script
+     * @param queue queue receiving the parsed lines
+     */
+    private void parseScript(BufferedReader script, BlockingQueue<ParsedLine> queue) {
+        try {
+            ParsedLine end = new ParsedLine(null, null, null);
+            try {
+                String inputLine;
+                while ((inputLine = script.readLine()) != null) {
+                    List<String> errors = new ArrayList<>(0);
+                    LibraryCommand command = cmdIntrp.parseCommand(inputLine, errors::add);
+                    queue.put(new ParsedLine(inputLine, command, errors));
+                }
+            } catch (IOException | UncheckedIOException e) {
+                end = new ParsedLine(null, null, List.of("ERROR: Reading batch script failed: " + e));
+            }
+            queue.put(end);
+        } catch (InterruptedException e) {
+            // the batch run has ended, nothing is read anymore
+        }
+    }
+
     /**
      * Main loop of the library browser programme.
      * 
@@ -76,4 +166,26 @@ public class LibraryBrowser {
             return null;
         }
     }
+
+    /** Line of a batch script together with the command parsed from it. */
+    private static final class ParsedLine {
+        /** Input line, or null if this marks the end of the script. */
+        private final String input;
+        /** Command parsed from the line, or null if parsing failed. */
+        private final LibraryCommand command;
+        /** Error messages reported while parsing the line. */
+        private final List<String> errors;
+
+        /**
+         * Create a parsed line.
+         * @param input input line, or null to mark the end of the script
+         * @param command command parsed from the line, or null if parsing failed
+         * @param errors error messages reported while parsing the line
+         */
+        private ParsedLine(String input, LibraryCommand command, List<String> errors) {
+            this.input = input;
+            this.command = command;
+            this.errors = errors;
+        }
+    }
 }
@@ -8,6 +8,8 @@ public abstract class LibraryCommand {
 
 	/** This commands specific type. */
 	private CommandType type;
+	/** Number of rows touched by the execution of this command. */
+	private long rowsTouched;
 
 	/**
 	 * Create the specified command and initialise it with 
@@ -36,14 +38,60 @@ public abstract class LibraryCommand {
 		return type;
 	}
 
+	/**
+	 * Number of rows, such as books listed, found, added or removed, that
+	 * the execution of this command touched.
+	 * @return number of touched rows, 0 before the command has been executed
+	 */
+	public long getRowsTouched() {
+		return rowsTouched;
+	}
+
+	/**
+	 * Count rows touched by the execution of this command. Subclasses
+	 * should call this from their execute method.
+	 * @param rows number of additionally touched rows
+	 */
+	protected void touched(long rows) {
+		rowsTouched += rows;
+	}
+
+	/**
+	 * Does this command only read the book data? Read-only commands may be
+	 * executed right away, while other commands may have to wait for each other.
+	 * 
+	 * Subclasses that do not modify the book data should override this method.
+	 * 
+	 * @return true if the command never modifies the book data, false otherwise
+	 */
+	public boolean isReadOnly() {
+		return false;
+	}
+
+	/**
+	 * Execute the specific command, writing its results to the standard output.
+	 * 
+	 * @param data book data to be considered for command execution.
+	 */
+	public void execute(LibraryData data) {
+		LibraryOutput out = LibraryOutput.standard();
+		try {
+			execute(data, out);
+		} finally {
+			out.flush();
+		}
+	}
+
 	/**
 	 * Execute the specific command.
 	 * 
 	 * Subclasses must override this method to specify corresponding behaviour.
+	 * Results are written to the given output, which is flushed by the caller.
 	 * 
 	 * @param data book data to be considered for command execution.
+	 * @param out output the command results are written to.
 	 */
-	public abstract void execute(LibraryData data);
+	public abstract void execute(LibraryData data, LibraryOutput out);
 
 	/**
 	 * Parses the given command arguments and initialised necessary
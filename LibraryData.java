@@ -1,71 +1,1398 @@
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /** 
  * Class responsible for handling currently loaded
  * book data and loading additional data from file.
+ * 
+ * A library is safe for concurrent use. Mutations are executed one at a
+ * time, and each of them changes the book data in short steps: files are
+ * parsed and snapshots are read and written in between, and added books are
+ * merged batch by batch, each batch being a step of its own. Files can also
+ * be added in the background, see {@link #startImport(Path)}.
+ * 
+ * After every step, an immutable {@link LibraryVersion} of the books and
+ * their indexes is published. Queries read the latest version without taking
+ * any lock, so they never wait for a mutation, but may observe the library in
+ * between two of its steps. A command that pins a version sees the same books
+ * however long it runs.
  */
 public class LibraryData {
 
-    /** Currently loaded book data. */
-    private final List<BookEntry> books;
+    /** File size in bytes from which on book data files are parsed on multiple cores. */
+    private static final long PARALLEL_LOAD_THRESHOLD = 16 << 20;
+    /** Number of books or index candidates from which on a title search is verified on multiple cores. */
+    private static final int PARALLEL_SEARCH_THRESHOLD = 1 << 15;
+    /**
+     * A query clause intersects its candidates with the ids of a further indexed
+     * predicate only while that index list is at most {@value #INTERSECTION_RATIO}
+     * times longer than the candidates, and verifies the predicate on the candidates otherwise.
+     */
+    private static final int INTERSECTION_RATIO = 8;
+    /** Size in bytes the mutation log may reach before it is checkpointed into a snapshot. */
+    private static final long CHECKPOINT_LOG_SIZE = 256L << 20;
+
+    /**
+     * Removed books are compacted away once more than one in
+     * {@value #COMPACTION_RATIO} slots holds a tombstone.
+     */
+    private static final int COMPACTION_RATIO = 4;
+    /** Group name for book titles that start with a single digit. */
+    private static final String SINGLE_DIGIT_GROUP = "[0-9]";
+
+    /**
+     * Currently loaded book data in library order. The slot of a book
+     * is its id, which all indexes refer to. Removed books leave a
+     * tombstone, so ids stay stable until the next compaction.
+     */
+    private final BookStore books;
+    /** Number of books in {@link #books} that have not been removed. */
+    private int liveCount;
+    /**
+     * Hash index from each loaded book to its id, used for constant time
+     * duplicate detection and removal. Holds exactly the live entries of {@link #books}.
+     */
+    private final BookIdIndex bookIndex;
+    /** Trigram index over the lower case titles, replaced when a snapshot is loaded. */
+    private TitleTrigramIndex titleIndex;
+    /** Index from each exact title to the ids of the books carrying it, resolving titles through {@link #books}. */
+    private final BookKeyIndex exactTitleIndex;
+    /** Index from each ISBN to the ids of the books carrying it, resolving ISBNs through {@link #books}. */
+    private final BookKeyIndex isbnIndex;
+    /** Sorted index over the ratings of the books, highest rating first. */
+    private final NumericIndex ratingIndex;
+    /** Sorted index over the page counts of the books, highest page count first. */
+    private final NumericIndex pagesIndex;
+    /**
+     * Multimap from each author to the ids of their books, sorted by author so
+     * that it doubles as the view for grouping by author. An id occurs once per
+     * occurrence of the author in the book's authors.
+     */
+    private final PostingMap<String> authorIndex;
+    /** Sorted view from the group name of each title initial to the ids of the books in that group. */
+    private final PostingMap<String> titleGroups;
+    /**
+     * Dictionary the author names of all loaded books are interned through,
+     * so each distinct author is held once across all loaded files. It is
+     * pruned to the authors of the remaining books on compaction.
+     */
+    private final AuthorDictionary authorDictionary;
+    /** Log every mutation is appended to, or null if mutations are not logged. */
+    private WriteAheadLog log;
+    /** Snapshot file the logged mutations are checkpointed into, or null if mutations are not logged. */
+    private Path checkpointFile;
+    /**
+     * Lock held by mutations for their whole duration, so that they run one
+     * at a time. It guards the book data and all indexes, which queries only
+     * read through the published {@link #version}.
+     */
+    private final ReentrantLock writerLock;
+    /** Latest published version of the books and their indexes. */
+    private volatile LibraryVersion version;
+    /** All imports of book data files started on this library, in the order they were started. */
+    private final List<ImportJob> imports;
+    /** Execution statistics of the commands run on this library. */
+    private final CommandStats commandStats;
 
-    /** Create a new and empty book library. */
+    /** Create a new and empty book library, keeping each book as a {@link BookEntry} object. */
     public LibraryData() {
-        books = new ArrayList<>();
+        this(new ObjectBookStore());
+    }
+
+    /**
+     * Create a new and empty book library backed by the given store, for
+     * example a {@link ColumnarBookStore} for a smaller memory footprint.
+     * @param store empty store the book data is kept in
+     * @throws NullPointerException if the given store is null
+     * @throws IllegalArgumentException if the given store is not empty
+     */
+    public LibraryData(BookStore store) {
+        Objects.requireNonNull(store, "Given store must not be null.");
+        if (!store.isEmpty()) {
+            throw new IllegalArgumentException("Given store must be empty, but it holds " + store.size() + " slots.");
+        }
+        books = store;
+        liveCount = 0;
+        bookIndex = new BookIdIndex(books);
+        titleIndex = new TitleTrigramIndex();
+        exactTitleIndex = new BookKeyIndex(books::titleAt);
+        isbnIndex = new BookKeyIndex(books::isbnAt);
+        ratingIndex = new NumericIndex();
+        pagesIndex = new NumericIndex();
+        authorIndex = new PostingMap<>(true);
+        titleGroups = new PostingMap<>(true);
+        authorDictionary = new AuthorDictionary();
+        writerLock = new ReentrantLock();
+        version = freeze(0);
+        imports = new CopyOnWriteArrayList<>();
+        commandStats = new CommandStats();
+    }
+
+    /**
+     * Get the execution statistics of the commands run on this library, which
+     * are recorded by every {@link CommandInterpreter} executing commands on it.
+     * @return command statistics of this library
+     */
+    public CommandStats getCommandStats() {
+        return commandStats;
     }
 
     /** 
      * Get all available book entries.
+     * 
+     * The returned list is the unmodifiable book list of the current version,
+     * in library order, which is not affected by later mutations. Use the
+     * removal methods of this class to remove entries so that all indexes
+     * are kept up to date.
+     * 
      * @return available book entries
      */
     public List<BookEntry> getBookData() {
-        return books;
+        return version.getBooks();
+    }
+
+    /**
+     * Get the number of available book entries.
+     * @return number of available book entries
+     */
+    public int size() {
+        return version.size();
+    }
+
+    /**
+     * Get the latest published version of the books and their indexes, without locking.
+     * @return current version of the library
+     */
+    public LibraryVersion currentVersion() {
+        return version;
+    }
+
+    /**
+     * Remove the given book entry from the library.
+     * @param book book entry to be removed
+     * @return true if the entry was part of the library, false otherwise
+     * @throws NullPointerException if the given book is null
+     */
+    public boolean removeBook(BookEntry book) {
+        Objects.requireNonNull(book, "Given book must not be null.");
+
+        writerLock.lock();
+        try {
+            boolean removed = mutate(() -> {
+                int id = bookIndex.find(book);
+                if (id < 0) {
+                    return false;
+                }
+                markRemoved(id);
+                compactIfNeeded();
+                return true;
+            });
+            if (removed) {
+                commitLog();
+            }
+            return removed;
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Remove the first book in library order with exactly the given title.
+     * 
+     * The book is looked up in the title index and replaced by a tombstone,
+     * so the removal takes constant amortized time.
+     * 
+     * @param title title of the book to be removed
+     * @return true if a book was removed, false if no book has the given title
+     * @throws NullPointerException if the given title is null
+     */
+    public boolean removeTitle(String title) {
+        Objects.requireNonNull(title, "Given title must not be null.");
+
+        writerLock.lock();
+        try {
+            boolean removed = mutate(() -> {
+                IntList ids = exactTitleIndex.get(title);
+                if (ids != null) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        int id = ids.get(i);
+                        if (books.isLive(id)) {
+                            markRemoved(id);
+                            compactIfNeeded();
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            });
+            if (removed) {
+                commitLog();
+            }
+            return removed;
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Remove all books written by the given author from the library.
+     * 
+     * The books are looked up in the author index and replaced by
+     * tombstones, so the removal takes time linear in the number of
+     * books written by the author.
+     * 
+     * @param author author whose books are to be removed
+     * @return number of removed author occurrences, which is the number of
+     * removed books unless an author is listed more than once for a book
+     * @throws NullPointerException if the given author is null
+     */
+    public int removeAuthor(String author) {
+        Objects.requireNonNull(author, "Given author must not be null.");
+
+        writerLock.lock();
+        try {
+            int removed = mutate(() -> removeOccurrences(authorIndex.get(author)));
+            if (removed > 0) {
+                commitLog();
+            }
+            return removed;
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Helper method of removeAuthor that replaces the books with the given ids by tombstones.
+     * @param ids ascending ids of the books to be removed, an id occurring once per author
+     * occurrence, or null if there are none
+     * @return number of removed occurrences of live books
+     */
+    private int removeOccurrences(IntList ids) {
+        if (ids == null) {
+            return 0;
+        }
+        int removed = 0;
+        int previous = -1;
+        boolean previousRemoved = false;
+        for (int i = 0; i < ids.size(); i++) {
+            int id = ids.get(i);
+            if (id != previous) {
+                previousRemoved = books.isLive(id);
+                if (previousRemoved) {
+                    markRemoved(id);
+                }
+                previous = id;
+            }
+            if (previousRemoved) {
+                removed++;
+            }
+        }
+        compactIfNeeded();
+        return removed;
+    }
+
+    /**
+     * Run a step of a mutation and publish the resulting version of the books,
+     * even if the step fails part way through. Must be called while holding {@link #writerLock}.
+     * @param <T> type of the step result
+     * @param step step to be run
+     * @return result of the step
+     */
+    private <T> T mutate(Supplier<T> step) {
+        try {
+            return step.get();
+        } finally {
+            publish();
+        }
+    }
+
+    /**
+     * Publish the current state of the books and their indexes as a new version.
+     * Must be called while holding {@link #writerLock}.
+     */
+    private void publish() {
+        version = freeze(version.getNumber() + 1);
+    }
+
+    /**
+     * Take a version of the current state of the books and their indexes, after
+     * merging the books added since the last version into the sorted indexes.
+     * Takes time proportional to the changes since the last version.
+     * @param number number of the version
+     * @return frozen version of the library
+     */
+    private LibraryVersion freeze(long number) {
+        ratingIndex.flush();
+        pagesIndex.flush();
+        BookStore store = books.freeze();
+        int bound = store.size();
+        return new LibraryVersion(number, store, titleIndex.freeze(bound),
+                exactTitleIndex.freeze(store::titleAt, bound), isbnIndex.freeze(store::isbnAt, bound),
+                ratingIndex.freeze(), pagesIndex.freeze(), authorIndex.freeze(bound), titleGroups.freeze(bound));
+    }
+
+    /**
+     * Replace the book with the given id by a tombstone.
+     * @param id id of a live book
+     */
+    private void markRemoved(int id) {
+        if (log != null) {
+            log.logRemove(books.get(id));
+        }
+        bookIndex.remove(id);
+        books.remove(id);
+        liveCount--;
+    }
+
+    /**
+     * Compact away all tombstones once they take up a large enough share of
+     * {@link #books}, renumbering the remaining books and rebuilding the indexes.
+     * Since this only happens after a number of removals proportional to the
+     * library size, the cost is constant amortized per removal.
+     */
+    private void compactIfNeeded() {
+        int tombstones = books.size() - liveCount;
+        if (tombstones == 0 || tombstones * COMPACTION_RATIO < books.size()) {
+            return;
+        }
+        compact();
+    }
+
+    /**
+     * Compact away all tombstones of {@link #books}, renumbering the remaining
+     * books and rebuilding the indexes. The indexes are rebuilt from the stored
+     * attributes of each book, without materialising a {@link BookEntry} for it.
+     */
+    private void compact() {
+        books.compact();
+        clearIndexes();
+        titleIndex.clear();
+        for (int id = 0; id < books.size(); id++) {
+            String title = books.titleAt(id);
+            titleIndex.add(id, books.titleKeyAt(id));
+            indexAttributes(id, title, books.isbnAt(id), books.ratingAt(id), books.pagesAt(id));
+            for (int i = 0; i < books.authorCountAt(id); i++) {
+                authorIndex.add(books.authorAt(id, i), id);
+            }
+        }
+        authorIndex.forEach((author, ids) -> authorDictionary.intern(author));
+    }
+
+    /**
+     * Clear all indexes except for the title index, as well as the author dictionary.
+     */
+    private void clearIndexes() {
+        bookIndex.clear();
+        exactTitleIndex.clear();
+        isbnIndex.clear();
+        ratingIndex.clear();
+        pagesIndex.clear();
+        authorIndex.clear();
+        titleGroups.clear();
+        authorDictionary.clear();
+    }
+
+    /**
+     * Find all books whose title contains the given term, ignoring case.
+     * 
+     * Terms of at least {@value TitleTrigramIndex#TRIGRAM_LENGTH} characters are
+     * answered from the title index, only verifying the candidate books it
+     * returns. Shorter terms fall back to scanning all books. The search reads
+     * the current version of the library without locking.
+     * 
+     * @param term search term
+     * @return matching books in library order
+     * @throws NullPointerException if the given term is null
+     */
+    public List<BookEntry> searchTitles(String term) {
+        Objects.requireNonNull(term, "Given search term must not be null.");
+
+        return findTitles(version, term.toLowerCase());
+    }
+
+    /**
+     * Helper method of searchTitles that finds all books whose lower case title contains the given term.
+     * 
+     * Once there are at least {@value #PARALLEL_SEARCH_THRESHOLD} books or index
+     * candidates to verify, they are partitioned across the common fork-join
+     * pool and the hits of all partitions are joined back in library order.
+     * 
+     * @param current version of the library to be searched
+     * @param lowerCaseTerm search term in lower case
+     * @return matching books in library order
+     */
+    private static List<BookEntry> findTitles(LibraryVersion current, String lowerCaseTerm) {
+        BookStore store = current.getStore();
+        IntList candidates = current.getTitleIndex().candidates(lowerCaseTerm);
+        int count = candidates == null ? store.size() : candidates.size();
+        TitleScanTask scan = new TitleScanTask(store, candidates, lowerCaseTerm, 0, count);
+        if (count >= PARALLEL_SEARCH_THRESHOLD && Runtime.getRuntime().availableProcessors() >= 2) {
+            return ForkJoinPool.commonPool().invoke(scan);
+        }
+        return scan.scan();
+    }
+
+    /**
+     * Fork-join task verifying a range of books or index candidates against a
+     * search term. The task reads a frozen store, which stays unchanged for all workers.
+     */
+    private static final class TitleScanTask extends RecursiveTask<List<BookEntry>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Number of books or candidates a task verifies itself instead of splitting. */
+        private static final int SPLIT_SIZE = 1 << 12;
+
+        /** Frozen store holding the books. */
+        private final BookStore books;
+        /** Ascending ids of the candidates to verify, or null to verify all slots of the store. */
+        private final IntList candidates;
+        /** Search term in lower case. */
+        private final String lowerCaseTerm;
+        /** First position in the candidates or slots to verify. */
+        private final int start;
+        /** Position after the last one to verify. */
+        private final int end;
+
+        /**
+         * Create a task verifying the given range.
+         * @param books frozen store holding the books
+         * @param candidates ascending ids of the candidates, or null for all slots of the store
+         * @param lowerCaseTerm search term in lower case
+         * @param start first position to verify
+         * @param end position after the last one to verify
+         */
+        TitleScanTask(BookStore books, IntList candidates, String lowerCaseTerm, int start, int end) {
+            this.books = books;
+            this.candidates = candidates;
+            this.lowerCaseTerm = lowerCaseTerm;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Verify the range, splitting it in halves that are verified in parallel while it is large.
+         * @return matching books of the range in library order
+         */
+        @Override
+        protected List<BookEntry> compute() {
+            if (end - start <= SPLIT_SIZE) {
+                return scan();
+            }
+            int middle = (start + end) >>> 1;
+            TitleScanTask first = new TitleScanTask(books, candidates, lowerCaseTerm, start, middle);
+            first.fork();
+            List<BookEntry> second = new TitleScanTask(books, candidates, lowerCaseTerm, middle, end).compute();
+            List<BookEntry> result = first.join();
+            result.addAll(second);
+            return result;
+        }
+
+        /**
+         * Verify the whole range on the current thread.
+         * @return matching books of the range in library order
+         */
+        private List<BookEntry> scan() {
+            List<BookEntry> result = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                int id = candidates == null ? i : candidates.get(i);
+                if (books.isLive(id) && books.titleKeyAt(id).contains(lowerCaseTerm)) {
+                    result.add(books.get(id));
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Find all books matching the given query.
+     * 
+     * Each clause of the query is planned on its own: its predicates on the
+     * title, author or ISBN, and the range of each numeric field its predicates
+     * on the rating or page count bound, are answered from an index and ordered by the
+     * estimated number of ids the index returns for them. The ids of the most
+     * selective one are intersected with those of the next ones while these are
+     * not much longer, see {@value #INTERSECTION_RATIO}, and the remaining
+     * candidates are verified against all predicates of the clause. Only a clause
+     * without any indexed predicate scans all books. The hits of all clauses are
+     * then joined in library order. The query reads the current version of the
+     * library without locking.
+     * 
+     * @param query query to be answered
+     * @return matching books in library order
+     * @throws NullPointerException if the given query is null
+     */
+    public List<BookEntry> findBooks(BookQuery query) {
+        Objects.requireNonNull(query, "Given query must not be null.");
+
+        LibraryVersion current = version;
+        BookStore store = current.getStore();
+        List<List<BookQuery.Predicate>> clauses = query.getClauses();
+        if (clauses.size() == 1) {
+            IntList ids = findClause(current, clauses.get(0));
+            List<BookEntry> result = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                result.add(store.get(ids.get(i)));
+            }
+            return result;
+        }
+
+        BitSet hits = new BitSet(store.size());
+        for (List<BookQuery.Predicate> clause : clauses) {
+            IntList ids = findClause(current, clause);
+            for (int i = 0; i < ids.size(); i++) {
+                hits.set(ids.get(i));
+            }
+        }
+        List<BookEntry> result = new ArrayList<>(hits.cardinality());
+        for (int id = hits.nextSetBit(0); id >= 0; id = hits.nextSetBit(id + 1)) {
+            result.add(store.get(id));
+        }
+        return result;
+    }
+
+    /**
+     * Find the books ranked highest by rating or page count, optionally only among those matching a query.
+     * 
+     * The books are read from the sorted index of the field, highest first and
+     * ties in library order, so without a query this takes O(k) time after
+     * skipping removed books. A query is checked on each book in turn, so its
+     * cost grows with the number of higher ranked books it rejects. The books are
+     * read from the current version of the library without locking.
+     * 
+     * @param count maximum number of books to be returned
+     * @param field {@link BookQuery.Field#RATING} or {@link BookQuery.Field#PAGES}
+     * @param filter query the books have to match, or null to consider all books
+     * @return at most count books in rank order
+     * @throws NullPointerException if the given field is null
+     * @throws IllegalArgumentException if the count is negative or the field is not numeric
+     */
+    public List<BookEntry> topBooks(int count, BookQuery.Field field, BookQuery filter) {
+        Objects.requireNonNull(field, "Given field must not be null.");
+        if (count < 0) {
+            throw new IllegalArgumentException("Given count must not be negative, but it is: " + count);
+        }
+        if (field != BookQuery.Field.RATING && field != BookQuery.Field.PAGES) {
+            throw new IllegalArgumentException("Books can only be ranked by rating or pages, not by: " + field);
+        }
+
+        LibraryVersion current = version;
+        BookStore store = current.getStore();
+        NumericIndex index = field == BookQuery.Field.RATING ? current.getRatingIndex() : current.getPagesIndex();
+        List<BookEntry> result = new ArrayList<>(Math.min(count, current.size()));
+        for (int position = 0; position < index.size() && result.size() < count; position++) {
+            int id = index.idAt(position);
+            if (store.isLive(id)) {
+                BookEntry book = store.get(id);
+                if (filter == null || filter.matches(book)) {
+                    result.add(book);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Helper method of findBooks that plans and runs a single clause of a query.
+     * @param current version of the library to be queried
+     * @param clause predicates all of which a book has to satisfy
+     * @return ascending ids of the live books satisfying the clause
+     */
+    private static IntList findClause(LibraryVersion current, List<BookQuery.Predicate> clause) {
+        BookStore store = current.getStore();
+        List<IndexAccess> accesses = new ArrayList<>(clause.size());
+        for (BookQuery.Predicate predicate : clause) {
+            int estimate = estimate(current, predicate);
+            if (estimate >= 0) {
+                accesses.add(new IndexAccess(estimate, () -> postings(current, predicate)));
+            }
+        }
+        addRangeAccess(accesses, clause, BookQuery.Field.RATING, current.getRatingIndex());
+        addRangeAccess(accesses, clause, BookQuery.Field.PAGES, current.getPagesIndex());
+        accesses.sort(Comparator.comparingInt(access -> access.estimate));
+
+        IntList candidates = null;
+        for (IndexAccess access : accesses) {
+            if (candidates != null && access.estimate > (long) INTERSECTION_RATIO * candidates.size()) {
+                break;
+            }
+            IntList ids = access.ids.get();
+            candidates = candidates == null ? ids : IntList.intersect(candidates, ids);
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+
+        IntList result = new IntList();
+        int count = candidates == null ? store.size() : candidates.size();
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            int id = candidates == null ? i : candidates.get(i);
+            if (id != previous && store.isLive(id) && BookQuery.matchesAll(clause, store.get(id))) {
+                result.add(id);
+            }
+            previous = id;
+        }
+        return result;
+    }
+
+    /**
+     * Helper method of findClause that combines all predicates of a clause on a
+     * numeric field into a single range of its sorted index.
+     * @param accesses index accesses of the clause, to which the range is added
+     * @param clause predicates of the clause
+     * @param field numeric field
+     * @param index sorted index over the field
+     */
+    private static void addRangeAccess(List<IndexAccess> accesses, List<BookQuery.Predicate> clause,
+            BookQuery.Field field, NumericIndex index) {
+        long minKey = Long.MIN_VALUE;
+        long maxKey = Long.MAX_VALUE;
+        boolean restricted = false;
+        for (BookQuery.Predicate predicate : clause) {
+            if (predicate.getField() == field) {
+                minKey = Math.max(minKey, minKey(predicate));
+                maxKey = Math.min(maxKey, maxKey(predicate));
+                restricted = true;
+            }
+        }
+        if (restricted) {
+            int from = index.firstAtMost(maxKey);
+            int to = Math.max(from, index.firstBelow(minKey));
+            accesses.add(new IndexAccess(to - from, () -> index.ascendingIds(from, to)));
+        }
+    }
+
+    /**
+     * Determine the lowest index key satisfying a predicate on the rating or page count.
+     * @param predicate predicate on a numeric field
+     * @return lowest satisfying key, or {@link Long#MIN_VALUE} if the range is open below
+     */
+    private static long minKey(BookQuery.Predicate predicate) {
+        switch (predicate.getOperator()) {
+            case LESS:
+            case LESS_OR_EQUAL:
+                return Long.MIN_VALUE;
+            case GREATER:
+                return predicate.getField() == BookQuery.Field.RATING
+                        ? NumericIndex.floatKey((float) predicate.getNumber()) + 1L
+                        : pagesKey(Math.floor(predicate.getNumber())) + 1;
+            default:
+                return predicate.getField() == BookQuery.Field.RATING
+                        ? NumericIndex.floatKey((float) predicate.getNumber())
+                        : pagesKey(Math.ceil(predicate.getNumber()));
+        }
+    }
+
+    /**
+     * Determine the highest index key satisfying a predicate on the rating or page count.
+     * @param predicate predicate on a numeric field
+     * @return highest satisfying key, or {@link Long#MAX_VALUE} if the range is open above
+     */
+    private static long maxKey(BookQuery.Predicate predicate) {
+        switch (predicate.getOperator()) {
+            case GREATER:
+            case GREATER_OR_EQUAL:
+                return Long.MAX_VALUE;
+            case LESS:
+                return predicate.getField() == BookQuery.Field.RATING
+                        ? NumericIndex.floatKey((float) predicate.getNumber()) - 1L
+                        : pagesKey(Math.ceil(predicate.getNumber())) - 1;
+            default:
+                return predicate.getField() == BookQuery.Field.RATING
+                        ? NumericIndex.floatKey((float) predicate.getNumber())
+                        : pagesKey(Math.floor(predicate.getNumber()));
+        }
+    }
+
+    /**
+     * Convert a whole page count of a query to an index key, clamping it to
+     * just outside the range of int keys.
+     * @param pages whole number of pages
+     * @return index key of the page count
+     */
+    private static long pagesKey(double pages) {
+        return (long) Math.max(Integer.MIN_VALUE - 1.0, Math.min(Integer.MAX_VALUE + 1.0, pages));
+    }
+
+    /**
+     * Estimate the number of ids the index of a predicate returns for it.
+     * @param current version of the library to be queried
+     * @param predicate predicate of a query
+     * @return upper bound of the length of {@link #postings(LibraryVersion, BookQuery.Predicate)},
+     * or -1 if no index answers the predicate
+     */
+    private static int estimate(LibraryVersion current, BookQuery.Predicate predicate) {
+        switch (predicate.getField()) {
+            case TITLE:
+                return predicate.getOperator() == BookQuery.Operator.EQUAL
+                        ? current.getExactTitleIndex().count(predicate.getValue())
+                        : current.getTitleIndex().estimate(predicate.getLowerCaseValue());
+            case AUTHOR:
+                return sizeOf(current.getAuthorIndex().get(predicate.getValue()));
+            case ISBN:
+                return current.getIsbnIndex().count(predicate.getValue());
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Get the ids the index of a predicate returns for it, a superset of the
+     * ids of the live books satisfying it that may include removed books.
+     * @param current version of the library to be queried
+     * @param predicate predicate with a non-negative {@link #estimate(LibraryVersion, BookQuery.Predicate)}
+     * @return ascending ids, possibly repeated, which must not be modified
+     */
+    private static IntList postings(LibraryVersion current, BookQuery.Predicate predicate) {
+        IntList ids;
+        switch (predicate.getField()) {
+            case TITLE:
+                ids = predicate.getOperator() == BookQuery.Operator.EQUAL
+                        ? current.getExactTitleIndex().get(predicate.getValue())
+                        : current.getTitleIndex().candidates(predicate.getLowerCaseValue());
+                break;
+            case AUTHOR:
+                ids = current.getAuthorIndex().get(predicate.getValue());
+                break;
+            default:
+                ids = current.getIsbnIndex().get(predicate.getValue());
+                break;
+        }
+        return ids == null ? new IntList(0) : ids;
+    }
+
+    /** Index list a query clause can be answered from, with its length known before it is fetched. */
+    private static final class IndexAccess {
+        /** Upper bound of the number of ids in the list. */
+        private final int estimate;
+        /** Fetches the ascending ids of the list, possibly repeated, which must not be modified. */
+        private final Supplier<IntList> ids;
+
+        /**
+         * Create an index access.
+         * @param estimate upper bound of the number of ids in the list
+         * @param ids fetches the ascending ids of the list
+         */
+        IndexAccess(int estimate, Supplier<IntList> ids) {
+            this.estimate = estimate;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * Get the length of an index list.
+     * @param ids index list, or null if the index has no entry
+     * @return number of ids in the list
+     */
+    private static int sizeOf(IntList ids) {
+        return ids == null ? 0 : ids.size();
+    }
+
+    /**
+     * Add a book to the id based indexes.
+     * @param id id of the book, larger than all ids indexed before
+     * @param book book to be indexed
+     */
+    private void indexBook(int id, BookEntry book) {
+        titleIndex.add(id, book.getTitleKey());
+        indexAttributes(id, book);
+    }
+
+    /**
+     * Add a book to all id based indexes except for the title index.
+     * @param id id of the book, larger than all ids indexed before
+     * @param book book to be indexed
+     */
+    private void indexAttributes(int id, BookEntry book) {
+        indexAttributes(id, book.getTitle(), book.getISBN(), book.getRating(), book.getPages());
+        for (String author : book.authorsView()) {
+            authorIndex.add(author, id);
+        }
+    }
+
+    /**
+     * Add a stored book to all id based indexes except for the title and author indexes.
+     * @param id id of the book in {@link #books}, larger than all ids indexed before
+     * @param title title of the book
+     * @param isbn ISBN of the book
+     * @param rating rating of the book
+     * @param pages page count of the book
+     */
+    private void indexAttributes(int id, String title, String isbn, float rating, int pages) {
+        bookIndex.add(id);
+        exactTitleIndex.add(id, title);
+        isbnIndex.add(id, isbn);
+        ratingIndex.add(id, NumericIndex.floatKey(rating));
+        pagesIndex.add(id, pages);
+        titleGroups.add(titleGroupOf(title), id);
+    }
+
+    /**
+     * Determine the group of a title: its initial letter in upper case, or
+     * {@value #SINGLE_DIGIT_GROUP} if the title starts with a digit.
+     * @param title title of a book
+     * @return group name of the title
+     */
+    private static String titleGroupOf(String title) {
+        if (title.isEmpty()) {
+            return title;
+        }
+        char initial = title.charAt(0);
+        if (Character.digit(initial, 10) >= 0) {
+            return SINGLE_DIGIT_GROUP;
+        }
+        return String.valueOf(initial).toUpperCase();
+    }
+
+    /**
+     * Visit the titles grouped by their initial letter, or by {@value #SINGLE_DIGIT_GROUP}
+     * if they start with a digit, in alphabetical order of the groups.
+     * 
+     * The groups are maintained incrementally as books are added and removed,
+     * so visiting them only streams the existing structure.
+     * 
+     * @param visitor receives each non-empty group name with its titles in library order
+     * @throws NullPointerException if the given visitor is null
+     */
+    public void forEachTitleGroup(BiConsumer<String, List<String>> visitor) {
+        Objects.requireNonNull(visitor, "Given visitor must not be null.");
+        LibraryVersion current = version;
+        visitGroups(current.getStore(), current.getTitleGroups(), visitor);
+    }
+
+    /**
+     * Visit the titles grouped by their authors, in alphabetical order of the authors.
+     * 
+     * The groups are maintained incrementally as books are added and removed,
+     * so visiting them only streams the existing structure.
+     * 
+     * @param visitor receives each author with the titles of their books in library order
+     * @throws NullPointerException if the given visitor is null
+     */
+    public void forEachAuthorGroup(BiConsumer<String, List<String>> visitor) {
+        Objects.requireNonNull(visitor, "Given visitor must not be null.");
+        LibraryVersion current = version;
+        visitGroups(current.getStore(), current.getAuthorIndex(), visitor);
+    }
+
+    /**
+     * Visit the groups of the given view, skipping removed books and groups without live books.
+     * 
+     * The groups are read from a version of the library without locking,
+     * so a slow visitor does not hold up mutations.
+     * 
+     * @param store frozen store holding the books of the version
+     * @param groups frozen sorted group view of the version
+     * @param visitor receives each non-empty group name with its titles in library order
+     */
+    private static void visitGroups(BookStore store, PostingMap<String> groups,
+            BiConsumer<String, List<String>> visitor) {
+        groups.forEach((group, ids) -> {
+            List<String> titles = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                int id = ids.get(i);
+                if (store.isLive(id)) {
+                    titles.add(store.titleAt(id));
+                }
+            }
+            if (!titles.isEmpty()) {
+                visitor.accept(group, titles);
+            }
+        });
     }
 
     /**
      * Initiate book data loading for the given path.
+     * 
+     * The file is streamed: entries are parsed and merged batch by batch
+     * as the file is read, so the whole file is never held in memory.
+     * Files of at least {@value #PARALLEL_LOAD_THRESHOLD} bytes are parsed
+     * on multiple cores, while batches are still merged in file order.
+     * If reading fails part way through, or the load is cancelled through
+     * its job in {@link #getImports()}, batches merged before remain in the
+     * library. Other mutations may run in between two batches.
+     * 
      * @param libraryFile specified path to book data file
      * @return true if loading was successful, false otherwise
      * @throws NullPointerException if the given path is null
      */
     public boolean loadData(Path libraryFile) {
+        LibraryOutput out = LibraryOutput.standard();
+        try {
+            return loadData(libraryFile, out);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Initiate book data loading for the given path, reporting the
+     * results to the given output.
+     * 
+     * @param libraryFile specified path to book data file
+     * @param out output the results are reported to
+     * @return true if loading was successful, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     * @see #loadData(Path)
+     */
+    public boolean loadData(Path libraryFile, LibraryOutput out) {
+        return importData(libraryFile, out).getState() == ImportJob.State.DONE;
+    }
+
+    /**
+     * Load the given book data file like {@link #loadData(Path, LibraryOutput)},
+     * returning the job of the import for its counters.
+     * 
+     * @param libraryFile specified path to book data file
+     * @param out output the results are reported to
+     * @return ended job of the import
+     * @throws NullPointerException if one of the given parameters is null
+     */
+    public ImportJob importData(Path libraryFile, LibraryOutput out) {
         Objects.requireNonNull(libraryFile, "Given file path must not be null.");
-               
-        LibraryFileLoader loader = new LibraryFileLoader();
-        boolean success = loader.loadFileContent(libraryFile);
+        Objects.requireNonNull(out, "Given output must not be null.");
+
+        ImportJob job = registerImport(libraryFile);
+        boolean success;
+        String failure = "";
+        try {
+            success = importFile(job, duplicate -> out.println("Duplicate entry found for book: " + duplicate));
+        } catch (RuntimeException e) {
+            success = false;
+            failure = ": " + e;
+        }
 
         if (success) {
-            List<BookEntry> loaded = loader.parseFileContent();
-            int added = mergeEntries(loaded);
-            System.out.println(added + " new book entries added.");
+            out.println(job.getBooksAdded() + " new book entries added.");
+        } else if (job.getState() == ImportJob.State.CANCELLED) {
+            out.println("Loading book data cancelled after " + job.getBooksAdded() + " new book entries added.");
         } else {
-            System.err.println("ERROR: Loading book data failed for file: " + libraryFile);
+            out.error("ERROR: Loading book data failed for file: " + libraryFile + failure);
         }
 
+        return job;
+    }
+
+    /**
+     * Start loading the given book data file on a background thread and return right away.
+     * 
+     * The file is loaded like with {@link #loadData(Path)}, but duplicates are only
+     * counted. Its books become visible batch by batch as they are merged, and other
+     * mutations may run in between two batches. The returned job reports the progress
+     * and can cancel the import.
+     * 
+     * @param libraryFile specified path to book data file
+     * @return job tracking the import
+     * @throws NullPointerException if the given path is null
+     */
+    public ImportJob startImport(Path libraryFile) {
+        Objects.requireNonNull(libraryFile, "Given file path must not be null.");
+
+        ImportJob job = registerImport(libraryFile);
+        Thread worker = new Thread(() -> {
+            try {
+                importFile(job, duplicate -> { });
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: Loading book data failed for file: " + libraryFile + ": " + e);
+            }
+        }, "import-" + job.getNumber());
+        worker.setDaemon(true);
+        worker.start();
+        return job;
+    }
+
+    /**
+     * Get all imports started on this library, whether in the foreground or in the
+     * background, including the ones that have ended.
+     * @return unmodifiable list of the imports in the order they were started
+     */
+    public List<ImportJob> getImports() {
+        return List.copyOf(imports);
+    }
+
+    /**
+     * Create a job for importing the given file and register it with this library.
+     * @param libraryFile specified path to book data file
+     * @return new running job
+     */
+    private ImportJob registerImport(Path libraryFile) {
+        synchronized (imports) {
+            ImportJob job = new ImportJob(imports.size() + 1, libraryFile);
+            imports.add(job);
+            return job;
+        }
+    }
+
+    /**
+     * Load the file of the given job, merging each parsed batch under its own
+     * lock so that queries and other mutations can run in between, and commit
+     * the mutation log at the end. Stops before the next batch once the job is cancelled.
+     * The log is committed and the job finished even if parsing throws.
+     * @param job running job of the file to be loaded
+     * @param duplicateSink receives each discarded duplicate entry
+     * @return true if the whole file was loaded, false if reading failed or the job was cancelled
+     */
+    private boolean importFile(ImportJob job, Consumer<BookEntry> duplicateSink) {
+        LibraryFileLoader loader = new LibraryFileLoader(authorDictionary);
+        List<BookEntry> duplicates = new ArrayList<>();
+        Consumer<List<BookEntry>> merger = batch -> {
+            if (job.isCancelRequested()) {
+                throw new CancellationException();
+            }
+            job.parsed(batch.size());
+            int added;
+            writerLock.lock();
+            try {
+                added = mutate(() -> mergeEntries(batch, duplicates));
+            } finally {
+                writerLock.unlock();
+            }
+            job.merged(added, duplicates.size());
+            duplicates.forEach(duplicateSink);
+            duplicates.clear();
+        };
+
+        boolean success = false;
+        try {
+            success = useParallelLoad(job.getFile())
+                    ? loader.parallelStreamFileContent(job.getFile(), merger)
+                    : loader.streamFileContent(job.getFile(), merger);
+        } catch (CancellationException e) {
+            success = false;
+        } finally {
+            // batches merged before a failure are kept, so they must reach the log either way
+            writerLock.lock();
+            try {
+                commitLog();
+            } finally {
+                writerLock.unlock();
+            }
+            job.finish(success);
+        }
         return success;
     }
 
+    /**
+     * Decide whether the given file is large enough to be parsed on multiple cores.
+     * @param libraryFile specified path to book data file
+     * @return true if the file should be parsed in parallel, false otherwise
+     */
+    private boolean useParallelLoad(Path libraryFile) {
+        if (Runtime.getRuntime().availableProcessors() < 2) {
+            return false;
+        }
+        try {
+            return Files.size(libraryFile) >= PARALLEL_LOAD_THRESHOLD;
+        } catch (IOException | SecurityException e) {
+            return false; // reported by the sequential loader
+        }
+    }
+
+    /**
+     * Save all available book entries and the title index to a binary snapshot file,
+     * replacing the file if it exists. Pending tombstones are compacted away first.
+     * 
+     * @param snapshotFile path of the snapshot file
+     * @return true if saving was successful, false otherwise
+     * @throws NullPointerException if the given path is null
+     */
+    public boolean saveSnapshot(Path snapshotFile) {
+        LibraryOutput out = LibraryOutput.standard();
+        try {
+            return saveSnapshot(snapshotFile, out);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Save all available book entries and the title index to a binary snapshot file,
+     * reporting the results to the given output.
+     * 
+     * @param snapshotFile path of the snapshot file
+     * @param out output the results are reported to
+     * @return true if saving was successful, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     * @see #saveSnapshot(Path)
+     */
+    public boolean saveSnapshot(Path snapshotFile, LibraryOutput out) {
+        Objects.requireNonNull(snapshotFile, "Given file path must not be null.");
+        Objects.requireNonNull(out, "Given output must not be null.");
+
+        boolean success = false;
+        writerLock.lock();
+        try {
+            writeSnapshot(snapshotFile, log == null ? 0 : log.getGeneration());
+            out.println(liveCount + " book entries saved.");
+            success = true;
+        } catch (IOException | SecurityException e) {
+            out.error("ERROR: Saving snapshot failed for file: " + snapshotFile + ": " + e);
+        } finally {
+            writerLock.unlock();
+        }
+
+        return success;
+    }
+
+    /**
+     * Replace all book entries with the ones of the given snapshot file.
+     * 
+     * The snapshot is read completely before the library is touched, so the
+     * library stays unchanged if reading fails. The title index is taken from
+     * the snapshot as is, only the cheaper indexes are rebuilt.
+     * 
+     * @param snapshotFile path of a snapshot file written by {@link #saveSnapshot(Path)}
+     * @return true if loading was successful, false otherwise
+     * @throws NullPointerException if the given path is null
+     */
+    public boolean loadSnapshot(Path snapshotFile) {
+        LibraryOutput out = LibraryOutput.standard();
+        try {
+            return loadSnapshot(snapshotFile, out);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Replace all book entries with the ones of the given snapshot file,
+     * reporting the results to the given output.
+     * 
+     * @param snapshotFile path of a snapshot file written by {@link #saveSnapshot(Path)}
+     * @param out output the results are reported to
+     * @return true if loading was successful, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     * @see #loadSnapshot(Path)
+     */
+    public boolean loadSnapshot(Path snapshotFile, LibraryOutput out) {
+        Objects.requireNonNull(snapshotFile, "Given file path must not be null.");
+        Objects.requireNonNull(out, "Given output must not be null.");
+
+        LibrarySnapshot snapshot;
+        try {
+            snapshot = LibrarySnapshot.read(snapshotFile);
+        } catch (IOException | SecurityException e) {
+            out.error("ERROR: Loading snapshot failed for file: " + snapshotFile + ": " + e);
+            return false;
+        }
+
+        writerLock.lock();
+        try {
+            mutate(() -> {
+                restoreSnapshot(snapshot);
+                return null;
+            });
+            out.println(liveCount + " book entries loaded.");
+
+            if (log != null) {
+                try {
+                    checkpoint();
+                } catch (IOException | SecurityException e) {
+                    out.error("ERROR: Checkpointing mutation log failed: " + e);
+                }
+            }
+        } finally {
+            writerLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Replace all book entries with the ones of the given snapshot. Must be
+     * called while holding {@link #writerLock}.
+     * @param snapshot snapshot holding the new book entries
+     */
+    private void restoreSnapshot(LibrarySnapshot snapshot) {
+        books.clear();
+        clearIndexes();
+        titleIndex = snapshot.getTitleIndex();
+        liveCount = 0;
+        for (BookEntry book : snapshot.getBooks()) {
+            indexAttributes(books.add(book), book);
+            liveCount++;
+        }
+        authorIndex.forEach((author, ids) -> authorDictionary.intern(author));
+    }
+
+    /**
+     * Write all available book entries and the title index to a snapshot file,
+     * compacting away pending tombstones first. Must be called while holding
+     * {@link #writerLock}.
+     * @param snapshotFile path of the snapshot file
+     * @param logGeneration generation of the mutation log whose records all come after the snapshot
+     * @throws IOException if writing the snapshot fails
+     */
+    private void writeSnapshot(Path snapshotFile, long logGeneration) throws IOException {
+        if (liveCount < books.size()) {
+            mutate(() -> {
+                compact();
+                return null;
+            });
+        }
+        new LibrarySnapshot(version.getBooks(), titleIndex, logGeneration).write(snapshotFile);
+    }
+
+    /**
+     * Restore the library from its last checkpoint and mutation log, and log all
+     * following mutations.
+     * 
+     * The snapshot file is loaded if it exists, then all intact records of the
+     * log file are replayed on top of it, unless the log was already cleared
+     * into the snapshot by a checkpoint that crashed before clearing it. So the
+     * recovered library holds exactly the books of the last committed command
+     * in the same order as before. From then on, every book added or
+     * removed is appended to the log, which is forced to disk once per command.
+     * When the log grows beyond {@value #CHECKPOINT_LOG_SIZE} bytes, or a
+     * snapshot is loaded with {@link #loadSnapshot(Path)}, the library is
+     * checkpointed into the snapshot file and the log is cleared.
+     * 
+     * This has to be called on an empty library, before any other mutation.
+     * 
+     * @param snapshotFile path of the checkpoint snapshot, which does not have to exist
+     * @param logFile path of the mutation log, which does not have to exist
+     * @return true if recovery was successful and mutations are logged from now on, false otherwise
+     * @throws NullPointerException if one of the given paths is null
+     * @throws IllegalStateException if the library is not empty or already logs its mutations
+     */
+    public boolean recover(Path snapshotFile, Path logFile) {
+        Objects.requireNonNull(snapshotFile, "Given snapshot path must not be null.");
+        Objects.requireNonNull(logFile, "Given log path must not be null.");
+
+        writerLock.lock();
+        try {
+            return mutate(() -> recoverLocked(snapshotFile, logFile));
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Helper method of recover that runs while holding {@link #writerLock}.
+     * @param snapshotFile path of the checkpoint snapshot, which does not have to exist
+     * @param logFile path of the mutation log, which does not have to exist
+     * @return true if recovery was successful and mutations are logged from now on, false otherwise
+     * @throws IllegalStateException if the library is not empty or already logs its mutations
+     */
+    private boolean recoverLocked(Path snapshotFile, Path logFile) {
+        if (log != null || !books.isEmpty()) {
+            throw new IllegalStateException("Library can only be recovered before it is used.");
+        }
+
+        long logGeneration = 0;
+        if (Files.exists(snapshotFile)) {
+            LibrarySnapshot snapshot;
+            try {
+                snapshot = LibrarySnapshot.read(snapshotFile);
+            } catch (IOException | SecurityException e) {
+                System.err.println("ERROR: Loading snapshot failed for file: " + snapshotFile + ": " + e);
+                return false;
+            }
+            restoreSnapshot(snapshot);
+            logGeneration = snapshot.getLogGeneration();
+            System.out.println(liveCount + " book entries loaded.");
+        }
+        try {
+            long replayed = WriteAheadLog.replay(logFile, logGeneration, authorDictionary, new WriteAheadLog.Replayer() {
+                @Override
+                public void add(BookEntry book) {
+                    if (bookIndex.find(book) < 0) {
+                        liveCount++;
+                        indexBook(books.add(book), book);
+                    }
+                }
+
+                @Override
+                public void remove(BookEntry book) {
+                    int id = bookIndex.find(book);
+                    if (id >= 0) {
+                        markRemoved(id);
+                        compactIfNeeded();
+                    }
+                }
+            });
+            System.out.println(replayed + " logged mutations replayed.");
+            log = WriteAheadLog.open(logFile, logGeneration);
+            checkpointFile = snapshotFile;
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Recovering library failed for log: " + logFile + ": " + e);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Force all mutations logged by the current command to disk, and checkpoint
+     * the log if it has grown too large. Does nothing if mutations are not logged.
+     * Must be called while holding {@link #writerLock}.
+     */
+    private void commitLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.commit();
+            if (log.size() >= CHECKPOINT_LOG_SIZE) {
+                checkpoint();
+            }
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Writing mutation log failed: " + e);
+        }
+    }
+
+    /**
+     * Save the library into the checkpoint snapshot and clear the mutation log,
+     * whose records are all contained in the snapshot then. The snapshot is
+     * durable before the log is cleared, and it carries the next log generation,
+     * so a crash in between never replays the old records on top of it.
+     * @throws IOException if writing the snapshot or clearing the log fails
+     */
+    private void checkpoint() throws IOException {
+        long nextGeneration = log.getGeneration() + 1;
+        writeSnapshot(checkpointFile, nextGeneration);
+        log.truncate(nextGeneration);
+    }
+
     /**
      * Merge the list of book entries with the
      * entries already loaded.
      * 
-     * Duplicate entries will be discarded (This requires .equals to be
-     * implemented for BookEntry).
+     * Duplicate entries will be discarded (This requires .equals and
+     * .hashCode to be implemented for BookEntry). Duplicates are detected
+     * through {@link #bookIndex}, so merging N entries into a library of
+     * M books takes O(N + M) time.
      * 
      * @param loaded list of book entries to be merged with data already loaded
+     * @param duplicates list the discarded duplicate entries are appended to
      * @return number of book entries added to the library
      */
-    private int mergeEntries(List<BookEntry> loaded) {
+    private int mergeEntries(List<BookEntry> loaded, List<BookEntry> duplicates) {
         int count = 0;
         for (BookEntry entry : loaded) {
-            if (!books.contains(entry)) {
-                books.add(entry);
+            if (bookIndex.find(entry) < 0) {
+                liveCount++;
+                indexBook(books.add(entry), entry);
+                if (log != null) {
+                    log.logAdd(entry);
+                }
                 count++;
             } else {
-                System.out.println("Duplicate entry found for book: " + entry);
+                duplicates.add(entry);
             }
         }
         return count;
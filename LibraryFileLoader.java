@@ -1,9 +1,20 @@
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
 
 /** 
  * Class responsible for loading
@@ -25,6 +36,20 @@ public class LibraryFileLoader {
     private static final int ISBN_INDEX = 3;
     /** The index of the pages in the BookData file*/
     private static final int PAGES_INDEX = 4;
+    /** Number of parsed book entries handed over at once while streaming a file*/
+    public static final int STREAM_BATCH_SIZE = 4096;
+    /** Approximate size in bytes of the line aligned windows mapped while streaming a file*/
+    private static final int STREAM_WINDOW_SIZE = 16 << 20;
+    /** Approximate size in bytes of the line aligned chunks parsed in parallel*/
+    private static final int PARALLEL_CHUNK_SIZE = 4 << 20;
+    /** Number of chunks per worker thread that may be parsed ahead of the merging consumer*/
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+    /** Size in bytes of the buffer used to search for the end of a line*/
+    private static final int LINE_SCAN_BUFFER_SIZE = 1 << 13;
+    /** Byte value of the line feed character*/
+    private static final byte LINE_FEED = '\n';
+    /** Byte value of the carriage return character*/
+    private static final byte CARRIAGE_RETURN = '\r';
 
 
 
@@ -39,10 +64,25 @@ public class LibraryFileLoader {
      * end of each line.
      */
     private List<String> fileContent;
+    /** Dictionary all parsed author names are interned through. */
+    private final AuthorDictionary authorDictionary;
 
     /** Create a new loader. No file content has been loaded yet. */
     public LibraryFileLoader() { 
-        fileContent = null;
+        this(new AuthorDictionary());
+    }
+
+    /**
+     * Create a new loader interning all parsed author names through the given
+     * dictionary, so that authors are shared with the books loaded before.
+     * No file content has been loaded yet.
+     * @param authorDictionary dictionary parsed author names are interned through
+     * @throws NullPointerException if the given dictionary is null
+     */
+    public LibraryFileLoader(AuthorDictionary authorDictionary) {
+        Objects.requireNonNull(authorDictionary, "Given author dictionary must not be null.");
+        this.fileContent = null;
+        this.authorDictionary = authorDictionary;
     }
 
     /**
@@ -91,19 +131,264 @@ public class LibraryFileLoader {
         }
 
         for (int entry = 1; entry < fileContent.size(); entry++) {
-            String thisBook = fileContent.get(entry);
-            String[] bookData = thisBook.split(DATA_VALUES_SEPARATOR);
+            result.add(parseLine(fileContent.get(entry), authorDictionary));
+        }
+
+        return result;
+    }
+
+    /**
+     * Stream the specified book data file, parsing each line into a book entry
+     * as soon as it has been read.
+     * 
+     * In contrast to loadFileContent and parseFileContent, the file is never held
+     * in memory as a whole: it is memory mapped in windows of about
+     * {@value #STREAM_WINDOW_SIZE} bytes and tokenized directly from the mapped
+     * bytes by a {@link BookDataTokenizer}. Parsed entries are handed to the given consumer in
+     * batches of at most {@value #STREAM_BATCH_SIZE} entries, so peak memory is
+     * bounded by the batch size instead of the file size. Batches handed over
+     * before a read error occurred are not revoked.
+     * 
+     * @param fileName file path with book data
+     * @param batchConsumer receives the parsed book entries in file order
+     * @return true if the whole file could be read successfully, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     */
+    public boolean streamFileContent(Path fileName, Consumer<List<BookEntry>> batchConsumer) {
+        Objects.requireNonNull(fileName, "Given filename must not be null.");
+        Objects.requireNonNull(batchConsumer, "Given batch consumer must not be null.");
+        boolean success = false;
+
+        try (FileChannel channel = FileChannel.open(fileName, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = headerEnd(channel, size);
+            BookDataTokenizer tokenizer = new BookDataTokenizer(authorDictionary);
+            BatchCollector batches = new BatchCollector(batchConsumer);
+
+            while (windowStart < size) {
+                long windowEnd = nextLineStart(channel, Math.min(windowStart + STREAM_WINDOW_SIZE, size), size);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+                tokenizer.tokenize(window, 0, window.capacity(), batches);
+                windowStart = windowEnd;
+            }
+            batches.flush();
+            success = true;
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Reading file content failed: " + e);
+        }
 
-            String title = bookData[TITLE_INDEX];
-            String[] authors = bookData[AUTHORS_INDEX].split(AUTHOR_SEPARATOR);
-            float rating = Float.parseFloat(bookData[RATING_INDEX]);
-            String ISBN = bookData[ISBN_INDEX];
-            int pages = Integer.parseInt(bookData[PAGES_INDEX]);
-            BookEntry book = new BookEntry(title, authors, rating, ISBN, pages);
+        return success;
+    }
 
-            result.add(book);
+    /**
+     * Parse the specified book data file on multiple cores.
+     * 
+     * The file is split into line aligned byte ranges of roughly
+     * {@value #PARALLEL_CHUNK_SIZE} bytes, which are memory mapped and
+     * tokenized on the common fork-join pool. Parsed chunks are handed to the given consumer strictly
+     * in file order, while the following chunks are still being parsed. Only a
+     * bounded number of chunks is parsed ahead of the consumer, so memory stays
+     * bounded independently of the file size. Chunks handed over before an
+     * error occurred are not revoked.
+     * 
+     * @param fileName file path with book data
+     * @param batchConsumer receives the parsed book entries in file order
+     * @return true if the whole file could be read successfully, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     */
+    public boolean parallelStreamFileContent(Path fileName, Consumer<List<BookEntry>> batchConsumer) {
+        Objects.requireNonNull(fileName, "Given filename must not be null.");
+        Objects.requireNonNull(batchConsumer, "Given batch consumer must not be null.");
+        boolean success = false;
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxInFlight = Math.max(1, pool.getParallelism()) * CHUNKS_IN_FLIGHT_PER_THREAD;
+        Deque<ForkJoinTask<List<BookEntry>>> inFlight = new ArrayDeque<>();
+
+        try (FileChannel channel = FileChannel.open(fileName, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkStart = headerEnd(channel, size);
+
+            while (chunkStart < size || !inFlight.isEmpty()) {
+                while (chunkStart < size && inFlight.size() < maxInFlight) {
+                    long chunkEnd = nextLineStart(channel, Math.min(chunkStart + PARALLEL_CHUNK_SIZE, size), size);
+                    inFlight.addLast(pool.submit(new ChunkParseTask(channel, chunkStart, chunkEnd, authorDictionary)));
+                    chunkStart = chunkEnd;
+                }
+                batchConsumer.accept(inFlight.removeFirst().join());
+            }
+            success = true;
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Reading file content failed: " + e);
+        } catch (UncheckedIOException e) {
+            System.err.println("ERROR: Reading file content failed: " + e.getCause());
+        } finally {
+            for (ForkJoinTask<List<BookEntry>> task : inFlight) {
+                task.cancel(true);
+            }
         }
 
-        return result;
+        return success;
+    }
+
+    /**
+     * Find the end of the header line, which is terminated by \n, \r or \r\n.
+     * @param channel channel of the book data file
+     * @param size size of the book data file in bytes
+     * @return position of the first byte after the header line
+     * @throws IOException if reading from the channel fails
+     */
+    private static long headerEnd(FileChannel channel, long size) throws IOException {
+        return nextLineStart(channel, 0, size);
+    }
+
+    /**
+     * Find the start of the line following the given position. Lines are
+     * terminated by \n, \r or \r\n, and a \r\n pair is never split.
+     * @param channel channel of the book data file
+     * @param position position from which to search for the next line terminator
+     * @param size size of the book data file in bytes
+     * @return position right after the next line terminator at or after the given position,
+     * or the file size if there is no further line terminator
+     * @throws IOException if reading from the channel fails
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LINE_SCAN_BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == LINE_FEED) {
+                    return position + i + 1;
+                }
+                if (b == CARRIAGE_RETURN) {
+                    long next = position + i + 1;
+                    if (i + 1 < read) {
+                        return buffer.get(i + 1) == LINE_FEED ? next + 1 : next;
+                    }
+                    ByteBuffer single = ByteBuffer.allocate(1);
+                    if (next < size && channel.read(single, next) == 1 && single.get(0) == LINE_FEED) {
+                        next++;
+                    }
+                    return next;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Collector of parsed book entries, handing them to a consumer in batches
+     * of at most {@value #STREAM_BATCH_SIZE} entries.
+     */
+    private static final class BatchCollector implements Consumer<BookEntry> {
+
+        /** Consumer receiving the full batches. */
+        private final Consumer<List<BookEntry>> batchConsumer;
+        /** Batch currently being filled. */
+        private List<BookEntry> batch;
+
+        /**
+         * Create a collector handing its batches to the given consumer.
+         * @param batchConsumer receives the collected batches
+         */
+        BatchCollector(Consumer<List<BookEntry>> batchConsumer) {
+            this.batchConsumer = batchConsumer;
+            this.batch = new ArrayList<>(STREAM_BATCH_SIZE);
+        }
+
+        /**
+         * Add the given book to the current batch, handing the batch over once it is full.
+         * @param book parsed book entry
+         */
+        @Override
+        public void accept(BookEntry book) {
+            batch.add(book);
+            if (batch.size() == STREAM_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        /** Hand the current batch over unless it is empty, and start a new one. */
+        void flush() {
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+                batch = new ArrayList<>(STREAM_BATCH_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Fork-join task parsing all lines within a line aligned byte range
+     * of a book data file.
+     */
+    private static final class ChunkParseTask extends RecursiveTask<List<BookEntry>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Channel of the book data file. Positional reads on it are thread safe. */
+        private final FileChannel channel;
+        /** Position of the first byte of this chunk. */
+        private final long start;
+        /** Position after the last byte of this chunk. */
+        private final long end;
+        /** Dictionary shared by all chunks of the file, parsed author names are interned through. */
+        private final AuthorDictionary authorDictionary;
+
+        /**
+         * Create a task parsing the given byte range.
+         * @param channel channel of the book data file
+         * @param start position of the first byte, which has to start a line
+         * @param end position after the last byte, which has to end a line or the file
+         * @param authorDictionary dictionary parsed author names are interned through
+         */
+        ChunkParseTask(FileChannel channel, long start, long end, AuthorDictionary authorDictionary) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.authorDictionary = authorDictionary;
+        }
+
+        /**
+         * Map and tokenize all lines of this chunk.
+         * @return book entries of this chunk in file order
+         * @throws UncheckedIOException if mapping or decoding the chunk fails
+         */
+        @Override
+        protected List<BookEntry> compute() {
+            List<BookEntry> result = new ArrayList<>();
+            try {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                new BookDataTokenizer(authorDictionary).tokenize(chunk, 0, chunk.capacity(), result::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Parse a single line of book data into a book entry.
+     * @param line line of a book data file without line break
+     * @param authorDictionary dictionary the author names are interned through
+     * @return book entry described by the given line
+     */
+    static BookEntry parseLine(String line, AuthorDictionary authorDictionary) {
+        String[] bookData = line.split(DATA_VALUES_SEPARATOR);
+
+        String title = bookData[TITLE_INDEX];
+        String[] authors = bookData[AUTHORS_INDEX].split(AUTHOR_SEPARATOR);
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = authorDictionary.intern(authors[i]);
+        }
+        float rating = Float.parseFloat(bookData[RATING_INDEX]);
+        String ISBN = bookData[ISBN_INDEX];
+        int pages = Integer.parseInt(bookData[PAGES_INDEX]);
+        return new BookEntry(title, authors, rating, ISBN, pages);
     }
 }
@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Buffered output sink that commands write their results into.
+ *
+ * Text is encoded once into a large reusable byte buffer, which is written
+ * to the underlying channel in big blocks whenever it runs full or the sink
+ * is flushed. This avoids the synchronized, flushing write per line of
+ * System.out.println when printing many thousands of lines.
+ *
+ * An output is not thread safe; it is meant to be used by one command at a time.
+ */
+public final class LibraryOutput {
+
+    /** Size in bytes of the buffer output is collected in before it is written*/
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** Largest char value that is encoded as the same single byte by ASCII compatible charsets*/
+    private static final char MAX_ASCII = 0x7F;
+    /** Line separator appended by the println methods*/
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /** Channel the buffered output is written to. */
+    private final WritableByteChannel channel;
+    /** Encoder for text that is not plain ASCII, replacing unmappable characters like PrintStream does. */
+    private final CharsetEncoder encoder;
+    /** Can ASCII characters be copied into the buffer without going through the encoder? */
+    private final boolean asciiCompatible;
+    /** Reusable buffer collecting the encoded output. */
+    private final ByteBuffer buffer;
+    /** Stream error messages are printed to, or null if they are written to the channel like other output. */
+    private final PrintStream errorStream;
+
+    /**
+     * Create an output writing to the given channel, including error messages.
+     * @param channel channel the output is written to
+     * @param charset charset used to encode the output
+     * @throws NullPointerException if one of the given parameters is null
+     */
+    public LibraryOutput(WritableByteChannel channel, Charset charset) {
+        this(channel, charset, null);
+    }
+
+    /**
+     * Create an output writing to the given channel, and error messages to the given stream.
+     * @param channel channel the output is written to
+     * @param charset charset used to encode the output
+     * @param errorStream stream error messages are printed to, or null to write them to the channel
+     * @throws NullPointerException if the given channel or charset is null
+     */
+    public LibraryOutput(WritableByteChannel channel, Charset charset, PrintStream errorStream) {
+        Objects.requireNonNull(channel, "Given channel must not be null.");
+        Objects.requireNonNull(charset, "Given charset must not be null.");
+
+        this.channel = channel;
+        this.errorStream = errorStream;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Create a new output to the standard output stream.
+     *
+     * It writes through System.out, so its output stays in order with
+     * anything printed to System.out directly, as long as it is flushed
+     * before printing directly. Error messages are printed to System.err.
+     * Every call returns an output of its own, so that threads writing to
+     * the standard output at the same time never share a buffer.
+     *
+     * @return output to the standard output stream
+     */
+    public static LibraryOutput standard() {
+        return new LibraryOutput(Channels.newChannel(System.out), Charset.defaultCharset(), System.err);
+    }
+
+    /**
+     * Append the given text.
+     * @param text text to be written
+     * @return this output
+     * @throws UncheckedIOException if writing a full buffer to the channel fails
+     */
+    public LibraryOutput print(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (asciiCompatible && c <= MAX_ASCII) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                buffer.put((byte) c);
+                i++;
+            } else {
+                int runEnd = i + 1;
+                while (runEnd < length && !(asciiCompatible && text.charAt(runEnd) <= MAX_ASCII)) {
+                    runEnd++;
+                }
+                encode(CharBuffer.wrap(text, i, runEnd));
+                i = runEnd;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Append the given text followed by a line separator.
+     * @param text text to be written
+     * @return this output
+     * @throws UncheckedIOException if writing a full buffer to the channel fails
+     */
+    public LibraryOutput println(CharSequence text) {
+        return print(text).print(LINE_SEPARATOR);
+    }
+
+    /**
+     * Append a line separator.
+     * @return this output
+     * @throws UncheckedIOException if writing a full buffer to the channel fails
+     */
+    public LibraryOutput println() {
+        return print(LINE_SEPARATOR);
+    }
+
+    /**
+     * Report an error message. Depending on the output, the message is either
+     * printed to a separate error stream, after flushing all output written
+     * before, or written to the channel like any other line.
+     * @param message error message to be reported
+     * @return this output
+     * @throws UncheckedIOException if writing to the channel fails
+     */
+    public LibraryOutput error(CharSequence message) {
+        if (errorStream == null) {
+            return println(message);
+        }
+        flush();
+        errorStream.println(message);
+        return this;
+    }
+
+    /**
+     * Write all buffered output to the underlying channel.
+     * @throws UncheckedIOException if writing to the channel fails
+     */
+    public void flush() {
+        drain();
+    }
+
+    /**
+     * Encode a run of characters into the buffer, draining the buffer whenever it runs full.
+     * @param chars characters to be encoded
+     */
+    private void encode(CharBuffer chars) {
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drain();
+            }
+        } while (result.isOverflow());
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+    }
+
+    /**
+     * Write the buffered bytes to the channel and clear the buffer.
+     * @throws UncheckedIOException if writing to the channel fails
+     */
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Server mode of the library browser, serving many concurrent client
+ * sessions over a local TCP socket.
+ *
+ * Every client connection is a session with its own command interpreter and
+ * output, running on its own thread. The sessions work on one shared library,
+ * which synchronizes its queries and mutations itself. Read-only commands
+ * ({@link LibraryCommand#isReadOnly()}) therefore run right away, while all
+ * other commands of all sessions are queued and run one after another in
+ * the order they arrived.
+ *
+ * The protocol is the one of the interactive browser: clients send one command
+ * per line in UTF-8 and receive its output, followed by a new prompt. Errors are
+ * sent to the client like any other output, and a command that fails does not
+ * end the session.
+ */
+public final class LibraryServer {
+
+    /** Prompt sent to the client before every command*/
+    private static final String PROMPT = "> ";
+    /** Size in chars of the buffer the commands of a session are read through*/
+    private static final int READ_BUFFER_SIZE = 1 << 13;
+
+    /** Book data shared by all sessions. */
+    private final LibraryData data;
+    /** Fair lock queueing the commands of all sessions that are not read-only. */
+    private final ReentrantLock mutationQueue;
+    /** Executor running one thread per session. */
+    private final ExecutorService sessions;
+
+    /**
+     * Create a server for the given library.
+     * @param data book data shared by all sessions
+     * @throws NullPointerException if the given library is null
+     */
+    public LibraryServer(LibraryData data) {
+        this.data = Objects.requireNonNull(data, "Given library data must not be null.");
+        this.mutationQueue = new ReentrantLock(true);
+        this.sessions = Executors.newCachedThreadPool(session -> {
+            Thread thread = new Thread(session, "library-session");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Accept client sessions on the given port of the loopback interface
+     * until the server socket fails.
+     * @param port port to listen on, or 0 for any free port
+     * @throws IOException if the server socket cannot be opened or fails
+     */
+    public void serve(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.out.println("Serving library sessions on port " + server.getLocalPort() + ".");
+            while (true) {
+                Socket client = server.accept();
+                sessions.execute(() -> runSession(client));
+            }
+        } finally {
+            sessions.shutdownNow();
+        }
+    }
+
+    /**
+     * Run a single client session until the client sends an exit command or disconnects.
+     * @param client socket connected to the client
+     */
+    private void runSession(Socket client) {
+        try (client;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            LibraryOutput out = new LibraryOutput(Channels.newChannel(client.getOutputStream()), StandardCharsets.UTF_8);
+            CommandInterpreter cmdIntrp = new CommandInterpreter(out);
+
+            out.println("\nEnter a library command or type " + CommandType.HELP + " for command overview.");
+            out.print(PROMPT).flush();
+            String inputLine;
+            while ((inputLine = in.readLine()) != null) {
+                LibraryCommand command = cmdIntrp.parseCommand(inputLine, out::error);
+                if (command == null) {
+                    out.error("ERROR: Given command input is invalid: " + inputLine);
+                } else if (command instanceof ExitCmd) {
+                    break;
+                } else {
+                    try {
+                        execute(cmdIntrp, command);
+                    } catch (RuntimeException e) {
+                        out.error("ERROR: Command failed: " + inputLine + ": " + e);
+                    }
+                }
+                out.print(PROMPT).flush();
+            }
+            out.flush();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("ERROR: Session with " + client.getRemoteSocketAddress() + " failed: " + e);
+        }
+    }
+
+    /**
+     * Execute a command of a session, queueing it behind the pending mutating
+     * commands of other sessions unless it is read-only.
+     * @param cmdIntrp interpreter of the session
+     * @param command command to be executed
+     */
+    private void execute(CommandInterpreter cmdIntrp, LibraryCommand command) {
+        if (command.isReadOnly()) {
+            cmdIntrp.executeCommand(command, data);
+            return;
+        }
+        mutationQueue.lock();
+        try {
+            cmdIntrp.executeCommand(command, data);
+        } finally {
+            mutationQueue.unlock();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Binary snapshot of the books of a library together with its title index,
+ * which can be loaded much faster than re-parsing the original book data files.
+ *
+ * The snapshot is laid out in columns: a header holding the generation of the
+ * mutation log it was taken at, the author dictionary, all
+ * titles, all ISBNs, the number of authors of each book followed by their
+ * dictionary ids, all ratings and all page counts, and finally the posting
+ * lists of the {@link TitleTrigramIndex}. Strings are stored as UTF-8 bytes
+ * prefixed with their length, numbers in big-endian binary form. Snapshots are
+ * read through a memory mapping of the whole file, and the title index is
+ * restored as written instead of being recomputed from the titles.
+ */
+public final class LibrarySnapshot {
+
+    /** Magic number every snapshot file starts with, "LBS1" in ASCII*/
+    private static final int MAGIC = 0x4C425331;
+    /** Version of the snapshot layout*/
+    private static final int VERSION = 1;
+    /** Size in bytes of the buffer used while writing a snapshot*/
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    /** Suffix of the temporary file a snapshot is written to before it replaces the target*/
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Books of the snapshot, where the position of a book is its id. */
+    private final List<BookEntry> books;
+    /** Title index of the books, referring to them by id. */
+    private final TitleTrigramIndex titleIndex;
+    /** Generation of the mutation log whose records all come after this snapshot. */
+    private final long logGeneration;
+
+    /**
+     * Create a snapshot of the given books and their title index.
+     * @param books books in library order, where the position of a book is its id
+     * @param titleIndex title index of exactly the given books
+     * @param logGeneration generation of the {@link WriteAheadLog} whose records all come after
+     * this snapshot, or 0 if mutations are not logged
+     * @throws NullPointerException if one of the given parameters is null
+     */
+    public LibrarySnapshot(List<BookEntry> books, TitleTrigramIndex titleIndex, long logGeneration) {
+        Objects.requireNonNull(books, "Given books must not be null.");
+        Objects.requireNonNull(titleIndex, "Given title index must not be null.");
+        this.books = books;
+        this.titleIndex = titleIndex;
+        this.logGeneration = logGeneration;
+    }
+
+    /**
+     * Get the books of the snapshot.
+     * @return books in library order, where the position of a book is its id
+     */
+    public List<BookEntry> getBooks() {
+        return books;
+    }
+
+    /**
+     * Get the title index of the snapshot.
+     * @return title index referring to the books by id
+     */
+    public TitleTrigramIndex getTitleIndex() {
+        return titleIndex;
+    }
+
+    /**
+     * Get the generation of the mutation log the snapshot was taken at. Records of
+     * logs of an older generation are already contained in the snapshot.
+     * @return generation of the {@link WriteAheadLog} whose records all come after this snapshot
+     */
+    public long getLogGeneration() {
+        return logGeneration;
+    }
+
+    /**
+     * Write the snapshot to the given file, replacing it if it exists.
+     *
+     * The snapshot is first written to a temporary file next to the target and
+     * forced to disk, before it atomically replaces the target. So neither a
+     * failed write nor a crash ever leave a truncated snapshot behind, and
+     * once this method returns the new snapshot is durable.
+     *
+     * @param file path of the snapshot file
+     * @throws IOException if writing the file fails
+     * @throws NullPointerException if the given path is null
+     */
+    public void write(Path file) throws IOException {
+        Objects.requireNonNull(file, "Given file path must not be null.");
+
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE));
+            List<String> authorNames = new ArrayList<>();
+            Map<String, Integer> authorIds = new HashMap<>();
+            for (BookEntry book : books) {
+                for (String author : book.authorsView()) {
+                    if (authorIds.putIfAbsent(author, authorNames.size()) == null) {
+                        authorNames.add(author);
+                    }
+                }
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(logGeneration);
+            out.writeInt(books.size());
+            out.writeInt(authorNames.size());
+            for (String author : authorNames) {
+                writeString(out, author);
+            }
+            for (BookEntry book : books) {
+                writeString(out, book.getTitle());
+            }
+            for (BookEntry book : books) {
+                writeString(out, book.getISBN());
+            }
+            for (BookEntry book : books) {
+                out.writeInt(book.authorsView().length);
+            }
+            for (BookEntry book : books) {
+                for (String author : book.authorsView()) {
+                    out.writeInt(authorIds.get(author));
+                }
+            }
+            for (BookEntry book : books) {
+                out.writeFloat(book.getRating());
+            }
+            for (BookEntry book : books) {
+                out.writeInt(book.getPages());
+            }
+            titleIndex.write(out);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Force the entries of the given directory to disk, so that a file moved into
+     * it survives a crash. Platforms that cannot open a directory for this are skipped.
+     * @param directory directory to be forced, or null if there is none
+     */
+    private static void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | SecurityException e) {
+            // not supported on this platform, e.g. on Windows
+        }
+    }
+
+    /**
+     * Read a snapshot written by {@link #write(Path)}.
+     * @param file path of the snapshot file
+     * @return snapshot held by the file
+     * @throws IOException if reading the file fails or it is not a valid snapshot
+     * @throws NullPointerException if the given path is null
+     */
+    public static LibrarySnapshot read(Path file) throws IOException {
+        Objects.requireNonNull(file, "Given file path must not be null.");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Library snapshot is too large to be mapped: " + file);
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                return read(in, file);
+            } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Library snapshot is corrupt: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Helper method of read that decodes the mapped snapshot file.
+     * @param in buffer holding the whole snapshot file
+     * @param file path of the snapshot file, used in error messages
+     * @return snapshot held by the buffer
+     * @throws IOException if the buffer does not hold a snapshot of this version
+     * @throws BufferUnderflowException if the snapshot is truncated
+     * @throws IllegalArgumentException if the snapshot holds invalid values
+     * @throws IndexOutOfBoundsException if the snapshot refers to an unknown author
+     */
+    private static LibrarySnapshot read(ByteBuffer in, Path file) throws IOException {
+        if (in.remaining() < 2 * Integer.BYTES || in.getInt() != MAGIC) {
+            throw new IOException("Not a library snapshot: " + file);
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported library snapshot version " + version + ": " + file);
+        }
+        long logGeneration = in.getLong();
+
+        StringReader strings = new StringReader(in);
+        int bookCount = readCount(in);
+        String[] authorNames = new String[readCount(in)];
+        for (int i = 0; i < authorNames.length; i++) {
+            authorNames[i] = strings.next();
+        }
+        String[] titles = new String[bookCount];
+        for (int i = 0; i < bookCount; i++) {
+            titles[i] = strings.next();
+        }
+        String[] isbns = new String[bookCount];
+        for (int i = 0; i < bookCount; i++) {
+            isbns[i] = strings.next();
+        }
+        String[][] authors = new String[bookCount][];
+        for (int i = 0; i < bookCount; i++) {
+            authors[i] = new String[readCount(in)];
+        }
+        for (String[] bookAuthors : authors) {
+            for (int j = 0; j < bookAuthors.length; j++) {
+                bookAuthors[j] = authorNames[in.getInt()];
+            }
+        }
+        float[] ratings = new float[bookCount];
+        in.asFloatBuffer().get(ratings);
+        in.position(in.position() + bookCount * Float.BYTES);
+        int[] pages = new int[bookCount];
+        in.asIntBuffer().get(pages);
+        in.position(in.position() + bookCount * Integer.BYTES);
+
+        List<BookEntry> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            books.add(new BookEntry(titles[i], authors[i], ratings[i], isbns[i], pages[i]));
+        }
+        TitleTrigramIndex titleIndex = TitleTrigramIndex.read(in, bookCount);
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException(in.remaining() + " unexpected trailing bytes");
+        }
+        return new LibrarySnapshot(books, titleIndex, logGeneration);
+    }
+
+    /**
+     * Read a non-negative count that cannot exceed the rest of the buffer.
+     * @param in buffer to read from
+     * @return count read from the buffer
+     * @throws IllegalArgumentException if the count is negative or larger than the rest of the buffer
+     */
+    private static int readCount(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Write a string as its UTF-8 bytes, prefixed with their number.
+     * @param out output to write to
+     * @param value string to be written
+     * @throws IOException if writing to the output fails
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Reader of consecutive length prefixed UTF-8 strings, reusing one buffer for their bytes. */
+    private static final class StringReader {
+        /** Buffer the strings are read from. */
+        private final ByteBuffer in;
+        /** Reusable buffer for the bytes of the current string. */
+        private byte[] scratch;
+
+        /**
+         * Create a reader of strings from the given buffer.
+         * @param in buffer to read from, starting at its position
+         */
+        private StringReader(ByteBuffer in) {
+            this.in = in;
+            this.scratch = new byte[0];
+        }
+
+        /**
+         * Read the next string.
+         * @return string read from the buffer
+         * @throws IllegalArgumentException if the length of the string is invalid
+         * @throws BufferUnderflowException if the buffer ends within the string
+         */
+        private String next() {
+            int length = readCount(in);
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, 2 * scratch.length)];
+            }
+            in.get(scratch, 0, length);
+            for (int i = 0; i < length; i++) {
+                if (scratch[i] < 0) {
+                    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+                }
+            }
+            return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable version of the books of a library and of their indexes, as
+ * published by {@link LibraryData} after each change.
+ *
+ * A command that pins a version reads a consistent library for as long as it
+ * runs, without any locking, while later changes are published as new versions.
+ * Versions share the book data and the index data with the library instead of
+ * copying it, and are published in time proportional to the change.
+ */
+public final class LibraryVersion {
+
+    /** Number of the version, counting up from zero with every change. */
+    private final long number;
+    /** Frozen store holding the books of the version. */
+    private final BookStore store;
+    /** Live books of the version in library order. */
+    private final List<BookEntry> books;
+    /** Frozen trigram index over the lower case titles. */
+    private final TitleTrigramIndex titleIndex;
+    /** Frozen index from each exact title to the ids of the books carrying it. */
+    private final BookKeyIndex exactTitleIndex;
+    /** Frozen index from each ISBN to the ids of the books carrying it. */
+    private final BookKeyIndex isbnIndex;
+    /** Frozen sorted index over the ratings, highest rating first. */
+    private final NumericIndex ratingIndex;
+    /** Frozen sorted index over the page counts, highest page count first. */
+    private final NumericIndex pagesIndex;
+    /** Frozen multimap from each author to the ids of their books, sorted by author. */
+    private final PostingMap<String> authorIndex;
+    /** Frozen sorted view from the group name of each title initial to the ids of the books in that group. */
+    private final PostingMap<String> titleGroups;
+
+    /**
+     * Create a version of the given frozen store and indexes, all of which are never changed again.
+     * @param number number of the version
+     * @param store frozen store holding the books
+     * @param titleIndex frozen trigram index over the lower case titles
+     * @param exactTitleIndex frozen index over the exact titles
+     * @param isbnIndex frozen index over the ISBNs
+     * @param ratingIndex frozen sorted index over the ratings
+     * @param pagesIndex frozen sorted index over the page counts
+     * @param authorIndex frozen multimap from the authors to their books
+     * @param titleGroups frozen sorted view of the title groups
+     * @throws NullPointerException if the given store is null
+     */
+    LibraryVersion(long number, BookStore store, TitleTrigramIndex titleIndex, BookKeyIndex exactTitleIndex,
+            BookKeyIndex isbnIndex, NumericIndex ratingIndex, NumericIndex pagesIndex,
+            PostingMap<String> authorIndex, PostingMap<String> titleGroups) {
+        this.number = number;
+        this.store = Objects.requireNonNull(store, "Given store must not be null.");
+        this.books = store.liveBooks();
+        this.titleIndex = titleIndex;
+        this.exactTitleIndex = exactTitleIndex;
+        this.isbnIndex = isbnIndex;
+        this.ratingIndex = ratingIndex;
+        this.pagesIndex = pagesIndex;
+        this.authorIndex = authorIndex;
+        this.titleGroups = titleGroups;
+    }
+
+    /**
+     * Get the number of the version.
+     * @return number of the version, larger for later versions
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    /**
+     * Get the books of the version.
+     * @return unmodifiable list of the live books in library order
+     */
+    public List<BookEntry> getBooks() {
+        return books;
+    }
+
+    /**
+     * Get the number of books of the version.
+     * @return number of live books
+     */
+    public int size() {
+        return books.size();
+    }
+
+    /**
+     * Get the frozen store of the version, whose ids all indexes of the version refer to.
+     * @return frozen store holding the books
+     */
+    BookStore getStore() {
+        return store;
+    }
+
+    /**
+     * Get the frozen trigram index of the version.
+     * @return trigram index over the lower case titles
+     */
+    TitleTrigramIndex getTitleIndex() {
+        return titleIndex;
+    }
+
+    /**
+     * Get the frozen exact title index of the version.
+     * @return index from each exact title to the ids of the books carrying it
+     */
+    BookKeyIndex getExactTitleIndex() {
+        return exactTitleIndex;
+    }
+
+    /**
+     * Get the frozen ISBN index of the version.
+     * @return index from each ISBN to the ids of the books carrying it
+     */
+    BookKeyIndex getIsbnIndex() {
+        return isbnIndex;
+    }
+
+    /**
+     * Get the frozen rating index of the version.
+     * @return sorted index over the ratings, highest rating first
+     */
+    NumericIndex getRatingIndex() {
+        return ratingIndex;
+    }
+
+    /**
+     * Get the frozen page count index of the version.
+     * @return sorted index over the page counts, highest page count first
+     */
+    NumericIndex getPagesIndex() {
+        return pagesIndex;
+    }
+
+    /**
+     * Get the frozen author index of the version.
+     * @return multimap from each author to the ids of their books, sorted by author
+     */
+    PostingMap<String> getAuthorIndex() {
+        return authorIndex;
+    }
+
+    /**
+     * Get the frozen title groups of the version.
+     * @return sorted view from the group name of each title initial to the ids of its books
+     */
+    PostingMap<String> getTitleGroups() {
+        return titleGroups;
+    }
+}
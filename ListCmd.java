@@ -54,47 +54,62 @@ public class ListCmd extends LibraryCommand {
      *  titles if the argument is {@value #STRING_SHORT} or {@value #STRING_DEFAULT}, or prints all the information of
      *  each book if the argument is {@value #STRING_LONG}.
      * @param data {@link LibraryData} to be considered for command execution.
+     * @param out {@link LibraryOutput} the list is written to.
      * @throws NullPointerException if the given {@link LibraryData} data is null.
      * @throws NullPointerException if the given {@link #parsedArgument} is null.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, LibraryOutput out) {
         Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
         Objects.requireNonNull(parsedArgument, Utils.PARSED_ARGUMENT_NULL_MESSAGE);
 
-        printHeaderMessage(data);
+        List<BookEntry> books = data.getBookData();
+        touched(books.size());
+
+        printHeaderMessage(books, out);
 
-        printBooks(data);
+        printBooks(books, out);
     }
 
     /** Helper method print the header of the execute method, indicating how many books are in the library.
-     * @param data {@link LibraryData} which contains the list of the books.
+     * @param books books of the pinned library version, so that header and listing agree.
+     * @param out {@link LibraryOutput} the header is written to.
      */
-    public void printHeaderMessage(LibraryData data){
-        List<BookEntry> books = data.getBookData();
+    public void printHeaderMessage(List<BookEntry> books, LibraryOutput out){
         if (books.isEmpty()){
-            System.out.println(Utils.EMPTY_LIBRARY_MESSAGE);
+            out.println(Utils.EMPTY_LIBRARY_MESSAGE);
         }
         else{
-            System.out.println(books.size() + " books in library:");
+            out.println(books.size() + " books in library:");
         }
     }
 
     /** Helper method that prints the list of titles if the argument is {@value #STRING_SHORT} or {@value #STRING_DEFAULT},
-     *  or prints all the information of each book if the argument is {@value #STRING_LONG}.
-     * @param data {@link LibraryData} which contains the list of the books.
+     *  or prints all the information of each book if the argument is {@value #STRING_LONG}. Long entries are rendered
+     *  into a single reused builder to avoid creating a string per book.
+     * @param books books of the library to be listed.
+     * @param out {@link LibraryOutput} the books are written to.
      */
-    public void printBooks (LibraryData data){
-        List<BookEntry> books = data.getBookData();
+    public void printBooks (List<BookEntry> books, LibraryOutput out){
         if (parsedArgument.equals(STRING_DEFAULT) || parsedArgument.equals(STRING_SHORT)){
             for (BookEntry book : books){
-                System.out.println(book.getTitle());
+                out.println(book.getTitle());
             }
         }
         else{
+            StringBuilder entry = new StringBuilder();
             for (BookEntry book : books){
-                System.out.println(book);
+                entry.setLength(0);
+                out.println(book.appendTo(entry));
             }
         }
     }
+
+    /** The list command only reads the book data.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
@@ -1,12 +1,134 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 /** Main entry point into the library browser program. */
 public class Main {
 
+    /** Argument selecting the columnar book store, which needs less memory for large libraries*/
+    private static final String COLUMNAR_ARG = "--columnar";
+    /** Argument followed by a directory the library is persisted in across restarts*/
+    private static final String DATA_DIR_ARG = "--data";
+    /** Argument followed by a command script to run non-interactively*/
+    private static final String BATCH_ARG = "--batch";
+    /** Argument followed by a local port to serve concurrent library sessions on*/
+    private static final String SERVE_ARG = "--serve";
+    /** Script name standing for the standard input stream*/
+    private static final String STDIN_SCRIPT = "-";
+    /** Size in chars of the buffer a command script is read through*/
+    private static final int SCRIPT_BUFFER_SIZE = 1 << 16;
+    /** Name of the checkpoint snapshot within the data directory*/
+    private static final String SNAPSHOT_FILE_NAME = "library.snapshot";
+    /** Name of the mutation log within the data directory*/
+    private static final String LOG_FILE_NAME = "library.wal";
+
     /**
      * Start the library browser program.
-     * @param args not used for arguments
+     * @param args optionally {@value #COLUMNAR_ARG} to keep the book data in columnar form, and
+     * {@value #DATA_DIR_ARG} followed by a directory to persist the library in, and
+     * {@value #BATCH_ARG} followed by a command script, or {@value #STDIN_SCRIPT} for the
+     * standard input, to run the script without prompts instead of reading commands interactively, or
+     * {@value #SERVE_ARG} followed by a port to serve sessions of local clients instead
      */
     public static void main(String[] args) {
-        LibraryBrowser browser = new LibraryBrowser();
-        browser.run();
+        boolean columnar = false;
+        Path dataDir = null;
+        String script = null;
+        Integer port = null;
+        for (int i = 0; i < args.length; i++) {
+            if (COLUMNAR_ARG.equals(args[i])) {
+                columnar = true;
+            } else if (DATA_DIR_ARG.equals(args[i]) && i + 1 < args.length) {
+                dataDir = Path.of(args[++i]);
+            } else if (BATCH_ARG.equals(args[i]) && i + 1 < args.length) {
+                script = args[++i];
+            } else if (SERVE_ARG.equals(args[i]) && i + 1 < args.length) {
+                port = parsePort(args[++i]);
+            } else {
+                System.err.println("ERROR: Unknown argument ignored: " + args[i]);
+            }
+        }
+
+        BookStore store = columnar ? new ColumnarBookStore() : new ObjectBookStore();
+        LibraryData data = new LibraryData(store);
+        if (dataDir != null && !recover(data, dataDir)) {
+            return;
+        }
+        if (port != null) {
+            serve(data, port);
+            return;
+        }
+        LibraryBrowser browser = new LibraryBrowser(data);
+        if (script == null) {
+            browser.run();
+        } else {
+            runBatch(browser, script);
+        }
+    }
+
+    /**
+     * Parse the port given for server mode.
+     * @param value port argument
+     * @return port number, or null if the argument is not a valid port
+     */
+    private static Integer parsePort(String value) {
+        try {
+            int port = Integer.parseInt(value);
+            if (port >= 0 && port <= 0xFFFF) {
+                return port;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("ERROR: Invalid port ignored: " + value);
+        return null;
+    }
+
+    /**
+     * Serve sessions of local clients on the given library until the server fails.
+     * @param data library shared by all sessions
+     * @param port port to listen on
+     */
+    private static void serve(LibraryData data, int port) {
+        try {
+            new LibraryServer(data).serve(port);
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Library server failed: " + e);
+        }
+    }
+
+    /**
+     * Run the given command script without prompts.
+     * @param browser library browser executing the commands
+     * @param script path of the command script, or {@value #STDIN_SCRIPT} for the standard input
+     */
+    private static void runBatch(LibraryBrowser browser, String script) {
+        try (BufferedReader reader = STDIN_SCRIPT.equals(script)
+                ? new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()), SCRIPT_BUFFER_SIZE)
+                : new BufferedReader(new InputStreamReader(Files.newInputStream(Path.of(script)), Charset.defaultCharset()),
+                        SCRIPT_BUFFER_SIZE)) {
+            browser.runBatch(reader);
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Batch script could not be read: " + e);
+        }
+    }
+
+    /**
+     * Restore the library from the given data directory and persist its mutations there.
+     * @param data empty library to be restored
+     * @param dataDir directory holding the checkpoint snapshot and mutation log, created if needed
+     * @return true if the library was restored successfully, false otherwise
+     */
+    private static boolean recover(LibraryData data, Path dataDir) {
+        try {
+            Files.createDirectories(dataDir);
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Data directory could not be created: " + e);
+            return false;
+        }
+        return data.recover(dataDir.resolve(SNAPSHOT_FILE_NAME), dataDir.resolve(LOG_FILE_NAME));
     }
 }
@@ -0,0 +1,231 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Sorted index from an int key of each book, such as its page count, to its id
+ * in a {@link BookStore}, used for range queries and ranking.
+ *
+ * Keys and ids are held in two parallel int arrays in rank order: descending
+ * by key, and ascending by id among equal keys, so that the books with the
+ * highest keys come first and ties stay in library order. The books with keys
+ * in a given range therefore occupy a contiguous run of positions, found by
+ * binary search in O(log n), and the k highest ranked books are the first k
+ * positions. Float keys are mapped to ints by {@link #floatKey(float)}.
+ *
+ * Added ids are buffered and only merged into the sorted arrays by
+ * {@link #flush()}, so that adding a batch of books costs one sort of the
+ * batch and one linear merge. Like the other indexes of a library, removed
+ * books are not taken out, but skipped by the caller until the next compaction.
+ *
+ * The merge writes new sorted arrays instead of changing the old ones, so
+ * {@link #freeze()} can hand out a view sharing them in constant time, which
+ * any number of threads may read while the index keeps changing.
+ */
+public final class NumericIndex {
+
+    /** Initial capacity of the sorted and pending arrays*/
+    private static final int INITIAL_CAPACITY = 1024;
+    /** Range lengths above one in this many entries are sorted by id through a bit set instead of sorting them*/
+    private static final int BIT_SET_RATIO = 16;
+
+    /** Keys of the merged entries in rank order. */
+    private int[] keys;
+    /** Ids of the merged entries in rank order. */
+    private int[] ids;
+    /** Number of merged entries. */
+    private int size;
+    /** Keys of the entries added since the last flush, in the order they were added. */
+    private int[] pendingKeys;
+    /** Ids of the entries added since the last flush, in the order they were added. */
+    private int[] pendingIds;
+    /** Number of entries added since the last flush. */
+    private int pendingCount;
+
+    /** Create a new and empty index. */
+    public NumericIndex() {
+        keys = new int[0];
+        ids = new int[0];
+        pendingKeys = new int[INITIAL_CAPACITY];
+        pendingIds = new int[INITIAL_CAPACITY];
+        size = 0;
+        pendingCount = 0;
+    }
+
+    /**
+     * Create a frozen view of the merged entries of the given index, sharing its sorted arrays.
+     * @param source index to be viewed
+     */
+    private NumericIndex(NumericIndex source) {
+        keys = source.keys;
+        ids = source.ids;
+        size = source.size;
+        pendingKeys = null;
+        pendingIds = null;
+        pendingCount = 0;
+    }
+
+    /**
+     * Map a float to an int key with the same order as {@link Float#compare(float, float)}.
+     * @param value float to be mapped
+     * @return int key of the float
+     */
+    public static int floatKey(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Add an entry, which becomes visible to lookups with the next {@link #flush()}.
+     * @param id id of a live book that is not yet part of the index
+     * @param key key of the book
+     */
+    public void add(int id, int key) {
+        if (pendingCount == pendingIds.length) {
+            pendingKeys = Arrays.copyOf(pendingKeys, pendingCount * 2);
+            pendingIds = Arrays.copyOf(pendingIds, pendingCount * 2);
+        }
+        pendingKeys[pendingCount] = key;
+        pendingIds[pendingCount] = id;
+        pendingCount++;
+    }
+
+    /**
+     * Merge all entries added since the last flush into new sorted arrays.
+     * Takes O(m log m + n) time for m added and n merged entries.
+     */
+    public void flush() {
+        if (pendingCount == 0) {
+            return;
+        }
+
+        // pack each entry into a long whose natural order is the rank order
+        long[] added = new long[pendingCount];
+        for (int i = 0; i < pendingCount; i++) {
+            added[i] = ((long) ~pendingKeys[i] << 32) | pendingIds[i];
+        }
+        Arrays.sort(added);
+
+        // merge into new arrays, leaving the ones of frozen views untouched
+        int total = size + pendingCount;
+        int[] mergedKeys = new int[total];
+        int[] mergedIds = new int[total];
+        int i = 0;
+        for (int j = 0, target = 0; target < total; target++) {
+            int key = j < pendingCount ? ~(int) (added[j] >>> 32) : 0;
+            int id = j < pendingCount ? (int) added[j] : 0;
+            if (j == pendingCount || (i < size && (keys[i] > key || (keys[i] == key && ids[i] < id)))) {
+                mergedKeys[target] = keys[i];
+                mergedIds[target] = ids[i];
+                i++;
+            } else {
+                mergedKeys[target] = key;
+                mergedIds[target] = id;
+                j++;
+            }
+        }
+        keys = mergedKeys;
+        ids = mergedIds;
+        size = total;
+        pendingCount = 0;
+    }
+
+    /** Remove all entries from the index, including the pending ones. Frozen views keep their entries. */
+    public void clear() {
+        keys = new int[0];
+        ids = new int[0];
+        size = 0;
+        pendingCount = 0;
+    }
+
+    /**
+     * Take a view of the merged entries, which is not affected by any later
+     * change and may be read by any number of threads. Takes constant time.
+     * Must not be called on a frozen view.
+     * @return frozen view of the index
+     */
+    public NumericIndex freeze() {
+        return new NumericIndex(this);
+    }
+
+    /**
+     * Get the number of merged entries.
+     * @return number of positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the id at a position in rank order.
+     * @param position position between 0 and {@link #size()}
+     * @return id of the book at the position
+     */
+    public int idAt(int position) {
+        return ids[position];
+    }
+
+    /**
+     * Find the first position in rank order whose key is at most the given one.
+     * @param maxKey highest key of a range
+     * @return first position of the range, or {@link #size()} if all keys are higher
+     */
+    public int firstAtMost(long maxKey) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] > maxKey) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the first position in rank order whose key is below the given one.
+     * @param minKey lowest key of a range
+     * @return position after the last one of the range, or {@link #size()} if no key is lower
+     */
+    public int firstBelow(long minKey) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] >= minKey) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the ids of a range of positions in ascending order, so that they can
+     * be intersected with other index lists.
+     * @param from first position of the range
+     * @param to position after the last one of the range
+     * @return new list of the ids of the range, in ascending order
+     */
+    public IntList ascendingIds(int from, int to) {
+        IntList result = new IntList(Math.max(0, to - from));
+        if ((long) (to - from) * BIT_SET_RATIO > size) {
+            BitSet set = new BitSet();
+            for (int position = from; position < to; position++) {
+                set.set(ids[position]);
+            }
+            for (int id = set.nextSetBit(0); id >= 0; id = set.nextSetBit(id + 1)) {
+                result.add(id);
+            }
+        } else if (from < to) {
+            int[] sorted = Arrays.copyOfRange(ids, from, to);
+            Arrays.sort(sorted);
+            for (int id : sorted) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Book store keeping every book as a {@link BookEntry} object in an array.
+ */
+public final class ObjectBookStore extends BookStore {
+
+    /** Number of books the array can hold before it has to grow for the first time*/
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Stored books, including removed ones. */
+    private BookEntry[] books;
+    /** Number of slots in use, including tombstones. */
+    private int size;
+    /** Tombstones of the removed books. */
+    private final Tombstones tombstones;
+
+    /** Create a new and empty store. */
+    public ObjectBookStore() {
+        books = new BookEntry[INITIAL_CAPACITY];
+        size = 0;
+        tombstones = new Tombstones();
+    }
+
+    /**
+     * Create a frozen copy of the given store, sharing its book array and tombstones.
+     * @param source store to be copied
+     */
+    private ObjectBookStore(ObjectBookStore source) {
+        books = source.books;
+        size = source.size;
+        tombstones = source.tombstones.freeze();
+    }
+
+    /**
+     * Append a book to the array.
+     * @param book book to be stored
+     * @return id of the stored book
+     * @throws NullPointerException if the given book is null
+     */
+    @Override
+    public int add(BookEntry book) {
+        Objects.requireNonNull(book, "Given book must not be null.");
+        if (size == books.length) {
+            books = Arrays.copyOf(books, books.length * 2);
+        }
+        books[size] = book;
+        return size++;
+    }
+
+    /**
+     * Get the book with the given id.
+     * @param id id of the book
+     * @return book with the given id or null if it has been removed
+     * @throws IndexOutOfBoundsException if the id is not within the store
+     */
+    @Override
+    public BookEntry get(int id) {
+        return isLive(id) ? books[id] : null;
+    }
+
+    /**
+     * Has the book with the given id not been removed yet?
+     * @param id id of the book
+     * @return true if the book is still part of the store, false otherwise
+     * @throws IndexOutOfBoundsException if the id is not within the store
+     */
+    @Override
+    public boolean isLive(int id) {
+        Objects.checkIndex(id, size);
+        return !tombstones.isRemoved(id);
+    }
+
+    /**
+     * Get the title of the book with the given id.
+     * @param id id of a book, which may have been removed
+     * @return title of the book
+     */
+    @Override
+    public String titleAt(int id) {
+        return books[id].getTitle();
+    }
+
+    /**
+     * Get the cached lower case title of the book with the given id.
+     * @param id id of a live book
+     * @return lower case title of the book
+     */
+    @Override
+    public String titleKeyAt(int id) {
+        return books[id].getTitleKey();
+    }
+
+    /**
+     * Get the ISBN of the book with the given id.
+     * @param id id of a book, which may have been removed
+     * @return ISBN of the book
+     */
+    @Override
+    public String isbnAt(int id) {
+        return books[id].getISBN();
+    }
+
+    /**
+     * Get the rating of the book with the given id.
+     * @param id id of a live book
+     * @return rating of the book
+     */
+    @Override
+    public float ratingAt(int id) {
+        return books[id].getRating();
+    }
+
+    /**
+     * Get the page count of the book with the given id.
+     * @param id id of a live book
+     * @return page count of the book
+     */
+    @Override
+    public int pagesAt(int id) {
+        return books[id].getPages();
+    }
+
+    /**
+     * Get the number of authors of the book with the given id.
+     * @param id id of a live book
+     * @return number of authors of the book
+     */
+    @Override
+    public int authorCountAt(int id) {
+        return books[id].authorsView().length;
+    }
+
+    /**
+     * Get an author of the book with the given id.
+     * @param id id of a live book
+     * @param index position of the author among the authors of the book
+     * @return author at the given position
+     */
+    @Override
+    public String authorAt(int id, int index) {
+        return books[id].authorsView()[index];
+    }
+
+    /**
+     * Get the cached hash code of the book with the given id.
+     * @param id id of a live book
+     * @return hash code of the book
+     */
+    @Override
+    public int hashAt(int id) {
+        return books[id].hashCode();
+    }
+
+    /**
+     * Mark the book with the given id as removed.
+     * @param id id of a live book
+     */
+    @Override
+    public void remove(int id) {
+        Objects.checkIndex(id, size);
+        tombstones.remove(id);
+    }
+
+    /**
+     * Get the number of slots, including tombstones.
+     * @return number of slots in the store
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of books that have not been removed.
+     * @return number of live books in the store
+     */
+    @Override
+    public int liveCount() {
+        return size - tombstones.count();
+    }
+
+    /** Copy all live books into a new array, dropping the tombstones. */
+    @Override
+    public void compact() {
+        BookEntry[] kept = new BookEntry[books.length];
+        int keptCount = 0;
+        for (int id = 0; id < size; id++) {
+            if (!tombstones.isRemoved(id)) {
+                kept[keptCount++] = books[id];
+            }
+        }
+        books = kept;
+        size = keptCount;
+        tombstones.clear();
+    }
+
+    /** Remove all books and tombstones, starting over with a new array. */
+    @Override
+    public void clear() {
+        books = new BookEntry[INITIAL_CAPACITY];
+        size = 0;
+        tombstones.clear();
+    }
+
+    /**
+     * Take an immutable copy of the store, sharing the book array with this store.
+     * @return frozen copy of the store
+     */
+    @Override
+    public BookStore freeze() {
+        return new ObjectBookStore(this);
+    }
+}
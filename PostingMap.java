@@ -0,0 +1,149 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Multimap from keys to ascending lists of book ids, which can be frozen in
+ * time proportional to the number of lists changed since the last freeze.
+ *
+ * The map is changed by a single thread, which appends ids in ascending order.
+ * Freezing publishes the lists changed since the last freeze, see
+ * {@link IntList#publish()}, and hands out a view bounded by the number of
+ * ids at that time. The view shares the concurrent map with this one and
+ * cuts every published list at its bound, so it ignores keys and ids added
+ * later, and any number of threads may read it while the map keeps changing.
+ * Clearing the map starts over with a new one, leaving the one of older views untouched.
+ *
+ * @param <K> type of the keys
+ */
+public final class PostingMap<K> {
+
+    /** Are the keys kept in their natural order? */
+    private final boolean sorted;
+    /** List of each key, shared with the frozen views. */
+    private Map<K, IntList> lists;
+    /** Lists changed since the last freeze, or null in a frozen view. */
+    private final List<IntList> changed;
+    /** Bound all ids of a frozen view are below, or {@link Integer#MAX_VALUE} for the map itself. */
+    private final int bound;
+
+    /**
+     * Create a new and empty map.
+     * @param sorted true to visit the keys in their natural order, false for hashed keys
+     */
+    public PostingMap(boolean sorted) {
+        this.sorted = sorted;
+        lists = newMap();
+        changed = new ArrayList<>();
+        bound = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Create a frozen view of the given map.
+     * @param source map to be viewed
+     * @param bound bound all ids of the view are below
+     */
+    private PostingMap(PostingMap<K> source, int bound) {
+        sorted = source.sorted;
+        lists = source.lists;
+        changed = null;
+        this.bound = bound;
+    }
+
+    /**
+     * Append an id to the list of a key. Must not be called on a frozen view.
+     * @param key key of the list
+     * @param id id that is at least as large as all ids added to the list before
+     */
+    public void add(K key, int id) {
+        listOf(key).add(id);
+    }
+
+    /**
+     * Append an id to the list of a key, unless it is the last id of the list
+     * already. Must not be called on a frozen view.
+     * @param key key of the list
+     * @param id id that is at least as large as all ids added to the list before
+     */
+    public void addDistinct(K key, int id) {
+        IntList ids = listOf(key);
+        if (ids.isEmpty() || ids.last() != id) {
+            ids.add(id);
+        }
+    }
+
+    /**
+     * Get the ids of a key.
+     * @param key key to look up
+     * @return ascending ids, which must not be modified, or null if the key has no ids
+     */
+    public IntList get(K key) {
+        IntList ids = lists.get(key);
+        if (ids == null || changed != null) {
+            return ids;
+        }
+        ids = ids.published().headBelow(bound);
+        return ids.isEmpty() ? null : ids;
+    }
+
+    /**
+     * Visit all keys with their ids, in the natural order of the keys if the map is sorted.
+     * @param visitor receives each key with its ascending ids, which must not be modified
+     */
+    public void forEach(BiConsumer<K, IntList> visitor) {
+        for (Map.Entry<K, IntList> list : lists.entrySet()) {
+            IntList ids = changed != null ? list.getValue() : list.getValue().published().headBelow(bound);
+            if (!ids.isEmpty()) {
+                visitor.accept(list.getKey(), ids);
+            }
+        }
+    }
+
+    /** Remove all keys, starting over with a new map. Must not be called on a frozen view. */
+    public void clear() {
+        lists = newMap();
+        changed.clear();
+    }
+
+    /**
+     * Publish all lists changed since the last freeze and take a view of the
+     * map, which is not affected by any later change. Must not be called on a frozen view.
+     * @param bound bound all ids added so far are below
+     * @return frozen view of the map
+     */
+    public PostingMap<K> freeze(int bound) {
+        for (IntList ids : changed) {
+            ids.publish();
+        }
+        changed.clear();
+        return new PostingMap<>(this, bound);
+    }
+
+    /**
+     * Get the list of a key, creating it if needed, and remember it as changed.
+     * @param key key of the list
+     * @return list of the key
+     */
+    private IntList listOf(K key) {
+        IntList ids = lists.get(key);
+        if (ids == null) {
+            ids = new IntList();
+            lists.put(key, ids);
+        }
+        if (ids.isPublished()) {
+            changed.add(ids);
+        }
+        return ids;
+    }
+
+    /**
+     * Create a new and empty concurrent map for the lists.
+     * @return sorted or hashed map, depending on {@link #sorted}
+     */
+    private Map<K, IntList> newMap() {
+        return sorted ? new ConcurrentSkipListMap<>() : new ConcurrentHashMap<>();
+    }
+}
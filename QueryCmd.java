@@ -0,0 +1,70 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Query command that allows the user to print the books matching a fielded query, see {@link BookQuery}.
+ */
+public class QueryCmd extends LibraryCommand {
+
+    /** Helper field generated to store the parsed query.*/
+    private BookQuery parsedQuery;
+
+    /** Constructor of the class QueryCmd. It is used to create a query command.
+     * @param argumentInput a string that should be a query as described by {@link BookQuery}.
+     * @throws IllegalArgumentException if the given argument input is blank or not a valid query.
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public QueryCmd(String argumentInput){
+        super(CommandType.QUERY, argumentInput);
+    }
+
+    /** Method that parses the arguments in order to store the query if it is not blank.
+     * @param argumentInput argument input following the QUERY command.
+     * @return true if the argument input is a valid query. False if it is blank.
+     * @throws IllegalArgumentException if the argument input is not a valid query, describing the problem.
+     * @throws NullPointerException if the given argument input is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, Utils.ARGUMENT_INPUT_NULL_MESSAGE);
+
+        if (argumentInput.isBlank()){
+            return false;
+        }
+        parsedQuery = BookQuery.parse(argumentInput);
+        return true;
+    }
+
+    /** Method that is responsible for the execution of the query command. It prints every book matching the
+     *  stored query in the long format of the list command, as found by the query planner of the
+     *  {@link LibraryData}. If no books are found, it prints a message indicating no books match the query.
+     * @param data {@link LibraryData} which contains the list of the books.
+     * @param out {@link LibraryOutput} the matching books are written to.
+     * @throws NullPointerException if the {@link LibraryData} data is null.
+     * @throws NullPointerException if {@link #parsedQuery} is null.
+     */
+    @Override
+    public void execute(LibraryData data, LibraryOutput out) {
+        Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
+        Objects.requireNonNull(parsedQuery, Utils.PARSED_ARGUMENT_NULL_MESSAGE);
+
+        List<BookEntry> hits = data.findBooks(parsedQuery);
+        touched(hits.size());
+        StringBuilder entry = new StringBuilder();
+        for (BookEntry book : hits){
+            entry.setLength(0);
+            out.println(book.appendTo(entry));
+        }
+        if (hits.isEmpty()){
+            out.println("No hits found for query: " + parsedQuery);
+        }
+    }
+
+    /** The query command only reads the book data.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -101,69 +99,52 @@ public class RemoveCmd extends LibraryCommand {
      *  and the stored term of the book to remove {@link #nameOfRemoval}in order to actually remove the book.
      *  It prints afterwards an informative message about the books removed.
      * @param data {@link LibraryData} which contains the list of the books.
+     * @param out {@link LibraryOutput} the informative message is written to.
      * @throws NullPointerException if the {@link LibraryData} data is null.
      * @throws NullPointerException if {@link #parameterOfRemoval} is null.
      * @throws NullPointerException if {@link #nameOfRemoval} is null.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, LibraryOutput out) {
         Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
         Objects.requireNonNull(parameterOfRemoval, "Given parameter of removal must not be null.");
         Objects.requireNonNull(nameOfRemoval, "Given name of removal must not be null.");
 
         switch (parameterOfRemoval){
             case TITLE_STRING:
-                removeTitles(data);
+                removeTitles(data, out);
                 break;
             case AUTHOR_STRING:
-                removeAuthors(data);
+                removeAuthors(data, out);
                 break;
         }
     }
 
-    /** Helper method of the execute method that removes all books whose title coincides with {@link #nameOfRemoval},
-     * and is responsible for printing the necessary message afterwards.
+    /** Helper method of the execute method that removes the first book whose title coincides with {@link #nameOfRemoval}
+     * through the title index of the {@link LibraryData}, and is responsible for printing the necessary message afterwards.
      * @param data {@link LibraryData} which contains the list of the books.
+     * @param out {@link LibraryOutput} the message is written to.
      */
-    private void removeTitles(LibraryData data){
-        int numberOfBooksRemoved = 0;
-        List<BookEntry> books = data.getBookData();
-        for (BookEntry book : books){
-            if ((book.getTitle()).equals(nameOfRemoval)){
-                books.remove(book);
-                numberOfBooksRemoved ++;
-                break;
-            }
-        }
-        if (numberOfBooksRemoved != 0){
-            System.out.println(nameOfRemoval + ": removed successfully.");
+    private void removeTitles(LibraryData data, LibraryOutput out){
+        if (data.removeTitle(nameOfRemoval)){
+            touched(1);
+            out.println(nameOfRemoval + ": removed successfully.");
         }
         else{
-            System.out.println(nameOfRemoval + ": not found.");
+            out.println(nameOfRemoval + ": not found.");
         }
     }
 
-    /** Helper method of the execute method that removes all books whose author coincides with {@link #nameOfRemoval},
-     * and is responsible for printing the necessary message afterwards.
+    /** Helper method of the execute method that removes all books whose author coincides with {@link #nameOfRemoval}
+     * through the author index of the {@link LibraryData}, and is responsible for printing the necessary message afterwards.
      * @param data {@link LibraryData} which contains the list of the books.
+     * @param out {@link LibraryOutput} the message is written to.
      */
-    private void removeAuthors(LibraryData data) {
-        List<BookEntry> books = data.getBookData();
-        ArrayList<BookEntry> booksToRemove = new ArrayList<>();
-
-        for (BookEntry book : books) {
-            for (String author : book.getAuthors()) {
-                if (author.equals(nameOfRemoval)) {
-                    booksToRemove.add(book);
-                }
-            }
-        }
-        for (BookEntry bookToRemove : booksToRemove) {
-            books.remove(bookToRemove);
-        }
-
-        System.out.println(booksToRemove.size() + " books removed for author: " + nameOfRemoval);
+    private void removeAuthors(LibraryData data, LibraryOutput out) {
+        int numberOfBooksRemoved = data.removeAuthor(nameOfRemoval);
+        touched(numberOfBooksRemoved);
 
+        out.println(numberOfBooksRemoved + " books removed for author: " + nameOfRemoval);
     }
 
 }
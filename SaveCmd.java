@@ -0,0 +1,57 @@
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Save command that allows the user to save all books of the library to a binary {@value #FILE_NAME_EXTENSION} file,
+ * which can be loaded much faster than the original book data files.
+ */
+public class SaveCmd extends LibraryCommand {
+
+    /** Private instance field that is used to store the path of the file*/
+    private Path filePath;
+    /** Private instance field that indicates the extension of the snapshot file*/
+    private static final String FILE_NAME_EXTENSION = ".snapshot";
+
+    /** Constructor of the class SaveCmd. It is used to create a Save command.
+     * @param argumentInput string that should represent a path ending with the valid file name extension ({@value #FILE_NAME_EXTENSION}).
+     * @throws IllegalArgumentException if the given argument input does not satisfy the conditions in parseArguments.
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public SaveCmd(String argumentInput){
+        super(CommandType.SAVE, argumentInput);
+    }
+
+    /** Method that parses the arguments in order to store the path if it ends in a valid {@value #FILE_NAME_EXTENSION} extension.
+     * @param argumentInput argument input following the SAVE command.
+     * @return true if it is a path ending with the valid extension ({@value #FILE_NAME_EXTENSION}). False otherwise.
+     * @throws NullPointerException if the given argument input is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, Utils.ARGUMENT_INPUT_NULL_MESSAGE);
+
+        argumentInput = argumentInput.strip();
+        if (argumentInput.endsWith(FILE_NAME_EXTENSION)){
+            filePath = Path.of(argumentInput);
+            return true;
+        }
+        return false;
+    }
+
+    /** Method that is responsible for the execution of the Save command. It uses the stored Path from the parseArguments method
+     * and uses the method saveSnapshot to save the list of books.
+     * @param data {@link LibraryData} which contains the list of  the books.
+     * @param out {@link LibraryOutput} the command results are written to.
+     * @throws NullPointerException if the {@link LibraryData} data is null.
+     * @throws NullPointerException if {@link #filePath} is null.
+     */
+    @Override
+    public void execute(LibraryData data, LibraryOutput out) {
+        Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
+        Objects.requireNonNull(filePath, "Given file path must not be null");
+
+        if (data.saveSnapshot(filePath, out)){
+            touched(data.size());
+        }
+    }
+}
@@ -39,27 +39,34 @@ public class SearchCmd extends LibraryCommand {
     }
 
     /** Method that is responsible for the execution of the search command. It uses the stored search term from the
-     *  parsed Argument and prints the list of titles that contain the search term. If no titles are found, it prints
+     *  parsed Argument and prints the list of titles that contain the search term, as found by the title index of
+     *  the {@link LibraryData}. If no titles are found, it prints
      *  a message indicating no books have been found matching the search term.
      * @param data {@link LibraryData} which contains the list of the books.
+     * @param out {@link LibraryOutput} the matching titles are written to.
      * @throws NullPointerException if the {@link LibraryData} data is null.
      * @throws NullPointerException if {@link #parsedArgument} is null.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, LibraryOutput out) {
         Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
         Objects.requireNonNull(parsedArgument, Utils.PARSED_ARGUMENT_NULL_MESSAGE);
 
-        List<BookEntry> books = data.getBookData();
-        int numberOfPrintedBooks = 0;
-        for (BookEntry book : books){
-            if (book.getTitle().toLowerCase().contains(parsedArgument.toLowerCase())){
-                System.out.println(book.getTitle());
-                numberOfPrintedBooks++;
-            }
+        List<BookEntry> hits = data.searchTitles(parsedArgument);
+        touched(hits.size());
+        for (BookEntry book : hits){
+            out.println(book.getTitle());
         }
-        if (numberOfPrintedBooks == 0){
-            System.out.println("No hits found for search term: " + parsedArgument);
+        if (hits.isEmpty()){
+            out.println("No hits found for search term: " + parsedArgument);
         }
     }
+
+    /** The search command only reads the book data.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Stats command that shows the execution statistics of all commands run on the library, or exports them
+ * to a {@value #FILE_NAME_EXTENSION} file if a path is given.
+ */
+public class StatsCmd extends LibraryCommand {
+
+    /** Private instance field that is used to store the path of the export file, or null to print the statistics*/
+    private Path filePath;
+    /** Private instance field that indicates the extension of the export file*/
+    private static final String FILE_NAME_EXTENSION = ".csv";
+
+    /** Constructor of the class StatsCmd. It is used to create a Stats command.
+     * @param argumentInput string that should be blank or represent a path ending with the valid file name extension ({@value #FILE_NAME_EXTENSION}).
+     * @throws IllegalArgumentException if the given argument input does not satisfy the conditions in parseArguments.
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public StatsCmd(String argumentInput){
+        super(CommandType.STATS, argumentInput);
+    }
+
+    /** Method that parses the arguments in order to store the path of the export file if one is given.
+     * @param argumentInput argument input following the STATS command.
+     * @return true if it is blank or a path ending with the valid extension ({@value #FILE_NAME_EXTENSION}). False otherwise.
+     * @throws NullPointerException if the given argument input is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, Utils.ARGUMENT_INPUT_NULL_MESSAGE);
+
+        argumentInput = argumentInput.strip();
+        if (argumentInput.isEmpty()){
+            return true;
+        }
+        if (argumentInput.endsWith(FILE_NAME_EXTENSION)){
+            filePath = Path.of(argumentInput);
+            return true;
+        }
+        return false;
+    }
+
+    /** Method that is responsible for the execution of the Stats command. It prints the latency, row and allocation
+     * statistics of every command type executed so far, or exports them to the stored path.
+     * @param data {@link LibraryData} whose command statistics are shown.
+     * @param out {@link LibraryOutput} the statistics are written to.
+     * @throws NullPointerException if the {@link LibraryData} data is null.
+     */
+    @Override
+    public void execute(LibraryData data, LibraryOutput out) {
+        Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
+
+        if (filePath == null){
+            data.getCommandStats().print(out);
+            return;
+        }
+        try {
+            data.getCommandStats().export(filePath);
+            out.println("Command statistics exported to: " + filePath);
+        } catch (IOException | SecurityException e) {
+            out.error("ERROR: Exporting command statistics failed for file: " + filePath + ": " + e);
+        }
+    }
+
+    /** The stats command only reads the book data.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
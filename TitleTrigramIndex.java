@@ -0,0 +1,216 @@
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Inverted index from the trigrams (three consecutive characters) of lower case
+ * book titles to the ids of the books containing them.
+ *
+ * Every lower case title containing a search term also contains all trigrams of
+ * that term, so intersecting their posting lists yields a small superset of the
+ * matching books, which only has to be verified instead of scanning the whole
+ * library. Book ids have to be added in ascending order, which keeps all posting
+ * lists sorted.
+ *
+ * The index is changed by a single thread, but {@link #freeze(int)} hands out
+ * views for lookups on any number of threads, see {@link PostingMap}.
+ */
+public final class TitleTrigramIndex {
+
+    /** Number of characters in a trigram*/
+    public static final int TRIGRAM_LENGTH = 3;
+    /** Character that never occurs in a search term, so trigrams containing it are not indexed*/
+    private static final char UNSEARCHABLE_CHAR = ' ';
+    /** Odd multiplier spreading packed trigrams over all bits of their key*/
+    private static final long KEY_MIXER = 0x9E3779B97F4A7C15L;
+
+    /** Posting lists of book ids, keyed by the packed characters of the trigram. */
+    private final PostingMap<Long> postings;
+
+    /** Create a new and empty index. */
+    public TitleTrigramIndex() {
+        postings = new PostingMap<>(false);
+    }
+
+    /**
+     * Create an index with the given posting lists.
+     * @param postings posting lists of the index
+     */
+    private TitleTrigramIndex(PostingMap<Long> postings) {
+        this.postings = postings;
+    }
+
+    /**
+     * Add a book to the index.
+     * @param id id of the book, which has to be larger than all ids added before
+     * @param lowerCaseTitle lower case title of the book
+     */
+    public void add(int id, String lowerCaseTitle) {
+        for (int i = 0; i + TRIGRAM_LENGTH <= lowerCaseTitle.length(); i++) {
+            if (isSearchable(lowerCaseTitle, i)) {
+                postings.addDistinct(trigram(lowerCaseTitle, i), id);
+            }
+        }
+    }
+
+    /** Remove all books from the index. Frozen views keep their books. */
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Take a view of the index for lookups, which is not affected by any later
+     * change and may be read by any number of threads. Must not be called on a frozen view.
+     * @param bound bound all ids added so far are below
+     * @return frozen view of the index
+     */
+    public TitleTrigramIndex freeze(int bound) {
+        return new TitleTrigramIndex(postings.freeze(bound));
+    }
+
+    /**
+     * Write the posting lists of the index, so that it can be restored with
+     * {@link #read(ByteBuffer, int)} without recomputing the trigrams of all titles.
+     * @param out output the index is written to
+     * @throws IOException if writing to the output fails
+     */
+    public void write(DataOutput out) throws IOException {
+        List<Long> trigrams = new ArrayList<>();
+        postings.forEach((trigram, ids) -> trigrams.add(trigram));
+        out.writeInt(trigrams.size());
+        for (Long trigram : trigrams) {
+            IntList ids = postings.get(trigram);
+            out.writeLong(trigram);
+            out.writeInt(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                out.writeInt(ids.get(i));
+            }
+        }
+    }
+
+    /**
+     * Read an index written by {@link #write(DataOutput)}, starting at the
+     * position of the given buffer and advancing it past the index.
+     * @param in buffer holding the written index
+     * @param bookCount number of books, all ids have to be below
+     * @return restored index
+     * @throws IllegalArgumentException if a posting list is not sorted, holds an invalid id or occurs twice
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the index
+     */
+    public static TitleTrigramIndex read(ByteBuffer in, int bookCount) {
+        TitleTrigramIndex index = new TitleTrigramIndex();
+        int postingCount = in.getInt();
+        for (int p = 0; p < postingCount; p++) {
+            long trigram = in.getLong();
+            int size = in.getInt();
+            if (size <= 0 || size > bookCount) {
+                throw new IllegalArgumentException("Invalid posting list size: " + size);
+            }
+            if (index.postings.get(trigram) != null) {
+                throw new IllegalArgumentException("Duplicate posting list of trigram: " + trigram);
+            }
+            int previous = -1;
+            for (int i = 0; i < size; i++) {
+                int id = in.getInt();
+                if (id <= previous || id >= bookCount) {
+                    throw new IllegalArgumentException("Invalid book id in posting list: " + id);
+                }
+                index.postings.add(trigram, id);
+                previous = id;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Find the ids of all books whose lower case title may contain the given term.
+     * @param lowerCaseTerm lower case search term of at least {@value #TRIGRAM_LENGTH} characters
+     * @return sorted ids of all books that may contain the term, which have to be verified
+     * by the caller, or null if the term is too short to be answered by the index
+     */
+    public IntList candidates(String lowerCaseTerm) {
+        int trigramCount = lowerCaseTerm.length() - TRIGRAM_LENGTH + 1;
+        if (trigramCount < 1) {
+            return null;
+        }
+
+        IntList[] lists = new IntList[trigramCount];
+        for (int i = 0; i < trigramCount; i++) {
+            if (!isSearchable(lowerCaseTerm, i)) {
+                return null;
+            }
+            lists[i] = postings.get(trigram(lowerCaseTerm, i));
+            if (lists[i] == null) {
+                return new IntList(0);
+            }
+        }
+
+        // intersect the shortest lists first to keep intermediate results small
+        Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+        IntList result = lists[0];
+        for (int i = 1; i < lists.length && !result.isEmpty(); i++) {
+            result = IntList.intersect(result, lists[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Estimate the number of candidates for the given term without intersecting
+     * any posting lists, as the length of the shortest posting list of its trigrams.
+     * @param lowerCaseTerm lower case search term
+     * @return upper bound of the number of candidates returned by {@link #candidates(String)},
+     * or -1 if the term is too short to be answered by the index
+     */
+    public int estimate(String lowerCaseTerm) {
+        int trigramCount = lowerCaseTerm.length() - TRIGRAM_LENGTH + 1;
+        if (trigramCount < 1) {
+            return -1;
+        }
+
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < trigramCount; i++) {
+            if (!isSearchable(lowerCaseTerm, i)) {
+                return -1;
+            }
+            IntList ids = postings.get(trigram(lowerCaseTerm, i));
+            estimate = Math.min(estimate, ids == null ? 0 : ids.size());
+        }
+        return estimate;
+    }
+
+    /**
+     * Does the trigram at the given position consist of searchable characters only?
+     * @param text text containing the trigram
+     * @param start position of the first character of the trigram
+     * @return true if the trigram can occur in a search term, false otherwise
+     */
+    private static boolean isSearchable(String text, int start) {
+        for (int i = start; i < start + TRIGRAM_LENGTH; i++) {
+            if (text.charAt(i) == UNSEARCHABLE_CHAR) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pack the trigram at the given position into a single key.
+     *
+     * The packed characters are multiplied by an odd constant, which maps
+     * distinct trigrams to distinct keys but spreads them over all bits. The
+     * hash code of a Long folds its upper half onto its lower half, so that
+     * packed trigrams with swapped first and last characters would collide.
+     *
+     * @param text text containing the trigram
+     * @param start position of the first character of the trigram
+     * @return key of the trigram
+     */
+    private static long trigram(String text, int start) {
+        long packed = ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+        return packed * KEY_MIXER;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * Tombstones of the removed slots of a {@link BookStore}, which can be frozen
+ * in constant time.
+ *
+ * Instead of a bit per slot, every removed slot records the epoch it was
+ * removed in. Freezing hands out a view of the current epoch that shares the
+ * epoch array, and starts a new epoch for all following removals. A view treats
+ * slots removed in a later epoch as live, so it is not affected by them even
+ * though they are written into the shared array. Clearing the tombstones after
+ * a compaction starts over with a new array, leaving the one of older views untouched.
+ *
+ * Tombstones are not thread safe, but frozen views may be read by any number
+ * of threads while the tombstones they were frozen from keep changing.
+ */
+public final class Tombstones {
+
+    /** Epoch of a slot that has not been removed*/
+    private static final int LIVE = 0;
+    /** Epoch of new tombstones, after the one meaning live*/
+    private static final int FIRST_EPOCH = LIVE + 1;
+    /** Epoch array shared by new tombstones, before any slot has been removed*/
+    private static final int[] NO_REMOVALS = new int[0];
+
+    /** Epoch each slot was removed in, or {@value #LIVE}. Slots beyond its end are live. */
+    private int[] removedIn;
+    /** Epoch removals are recorded in. Slots removed in a later epoch are live for this instance. */
+    private int epoch;
+    /** Number of slots removed up to and including {@link #epoch}. */
+    private int count;
+
+    /** Create tombstones without any removed slot. */
+    public Tombstones() {
+        removedIn = NO_REMOVALS;
+        epoch = FIRST_EPOCH;
+        count = 0;
+    }
+
+    /**
+     * Create a frozen view of the given tombstones, sharing their epoch array.
+     * @param source tombstones to be frozen
+     */
+    private Tombstones(Tombstones source) {
+        removedIn = source.removedIn;
+        epoch = source.epoch;
+        count = source.count;
+    }
+
+    /**
+     * Has the slot with the given id been removed?
+     * @param id id of the slot
+     * @return true if the slot holds a tombstone, false otherwise
+     */
+    public boolean isRemoved(int id) {
+        if (id >= removedIn.length) {
+            return false;
+        }
+        int removal = removedIn[id];
+        return removal != LIVE && removal <= epoch;
+    }
+
+    /**
+     * Replace the slot with the given id by a tombstone.
+     * Must not be called on a frozen view.
+     * @param id id of a live slot
+     */
+    public void remove(int id) {
+        if (id >= removedIn.length) {
+            removedIn = Arrays.copyOf(removedIn, Math.max(id + 1, 2 * removedIn.length));
+        }
+        removedIn[id] = epoch;
+        count++;
+    }
+
+    /**
+     * Get the number of removed slots.
+     * @return number of tombstones
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Take a view of the current tombstones, which is not affected by any later
+     * removal. Takes constant time, apart from renumbering the epochs once every
+     * {@value Integer#MAX_VALUE} views. Must not be called on a frozen view.
+     * @return frozen view of the tombstones
+     */
+    public Tombstones freeze() {
+        Tombstones frozen = new Tombstones(this);
+        if (epoch == Integer.MAX_VALUE) {
+            int[] renumbered = new int[removedIn.length];
+            for (int id = 0; id < removedIn.length; id++) {
+                renumbered[id] = removedIn[id] == LIVE ? LIVE : FIRST_EPOCH;
+            }
+            removedIn = renumbered;
+            epoch = FIRST_EPOCH;
+        }
+        epoch++;
+        return frozen;
+    }
+
+    /**
+     * Remove all tombstones, typically after the store has been compacted.
+     * Frozen views keep their tombstones. Must not be called on a frozen view.
+     */
+    public void clear() {
+        removedIn = NO_REMOVALS;
+        epoch = FIRST_EPOCH;
+        count = 0;
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Top command that allows the user to print the books with the highest rating or page count, optionally only
+ * among the books matching a fielded query, see {@link BookQuery}.
+ */
+public class TopCmd extends LibraryCommand {
+
+    /** Private instance field that is used to store the maximum number of books to be printed*/
+    private int count;
+    /** Private instance field that is used to store the field the books are ranked by*/
+    private BookQuery.Field rankedField;
+    /** Private instance field that is used to store the query the books have to match, or null for all books*/
+    private BookQuery filter;
+    /** String that represents the rating parameter.*/
+    private final static String RATING_STRING = "RATING";
+    /** String that represents the pages parameter.*/
+    private final static String PAGES_STRING = "PAGES";
+    /** Regular expression separating the count, the ranked field and the query.*/
+    private final static String ARGUMENT_SEPARATOR = "\\s+";
+
+    /** Constructor of the class TopCmd. It is used to create a Top command.
+     * @param argumentInput a string that should be a positive count, followed by {@value #RATING_STRING} or
+     * {@value #PAGES_STRING} and optionally a query.
+     * @throws IllegalArgumentException if the given argument input does not satisfy the conditions in parseArguments.
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public TopCmd(String argumentInput){
+        super(CommandType.TOP, argumentInput);
+    }
+
+    /** Method that parses the arguments in order to store the count, the ranked field and the optional query.
+     * @param argumentInput argument input following the TOP command.
+     * @return true if it starts with a positive count followed by {@value #RATING_STRING} or {@value #PAGES_STRING}.
+     * False otherwise.
+     * @throws IllegalArgumentException if the query following them is not valid, describing the problem.
+     * @throws NullPointerException if the given argument input is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, Utils.ARGUMENT_INPUT_NULL_MESSAGE);
+
+        String[] arguments = argumentInput.strip().split(ARGUMENT_SEPARATOR, 3);
+        if (arguments.length < 2){
+            return false;
+        }
+        try {
+            count = Integer.parseInt(arguments[0]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        switch (arguments[1]){
+            case RATING_STRING:
+                rankedField = BookQuery.Field.RATING;
+                break;
+            case PAGES_STRING:
+                rankedField = BookQuery.Field.PAGES;
+                break;
+            default:
+                return false;
+        }
+        if (arguments.length == 3){
+            filter = BookQuery.parse(arguments[2]);
+        }
+        return count > 0;
+    }
+
+    /** Method that is responsible for the execution of the Top command. It prints at most the stored number of
+     *  books, highest ranked first, in the long format of the list command, as read from the sorted indexes of the
+     *  {@link LibraryData}. If no books are found, it prints a message indicating so.
+     * @param data {@link LibraryData} which contains the list of the books.
+     * @param out {@link LibraryOutput} the books are written to.
+     * @throws NullPointerException if the {@link LibraryData} data is null.
+     * @throws NullPointerException if {@link #rankedField} is null.
+     */
+    @Override
+    public void execute(LibraryData data, LibraryOutput out) {
+        Objects.requireNonNull(data, Utils.DATA_NULL_MESSAGE);
+        Objects.requireNonNull(rankedField, Utils.PARSED_ARGUMENT_NULL_MESSAGE);
+
+        List<BookEntry> hits = data.topBooks(count, rankedField, filter);
+        touched(hits.size());
+        StringBuilder entry = new StringBuilder();
+        for (BookEntry book : hits){
+            entry.setLength(0);
+            out.println(book.appendTo(entry));
+        }
+        if (hits.isEmpty()){
+            out.println(filter == null ? Utils.EMPTY_LIBRARY_MESSAGE : "No hits found for query: " + filter);
+        }
+    }
+
+    /** The top command only reads the book data.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -0,0 +1,478 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the mutations applied to a library, so that they survive
+ * a restart.
+ *
+ * Mutations are logged per book: every book added to or removed from the
+ * library is appended as one record, even if a single command removes many
+ * books.
+ *
+ * Every log starts with a header holding its generation. Whenever the library
+ * is checkpointed into a snapshot, the snapshot records the next generation
+ * and the log is then cleared and restarted with that generation. On recovery,
+ * only a log of at least the generation of the snapshot is replayed, so records
+ * that are already contained in the snapshot, left behind by a crash between
+ * writing the snapshot and clearing the log, are never applied twice.
+ *
+ * A record consists of its payload length, a CRC32 checksum of the payload,
+ * and the payload made up of the record type and the book, with strings stored
+ * as length prefixed UTF-8 bytes. Records are collected in a buffer and only
+ * forced to disk on {@link #commit()}, so that all mutations of one command
+ * share a single fsync (group commit).
+ *
+ * On recovery, {@link #replay(Path, long, AuthorDictionary, Replayer)} hands the records back in order.
+ * A torn or corrupt record at the end of the log, left behind by a crash in
+ * the middle of a write, ends the replay and is cut off.
+ *
+ * A log is not thread safe; it is meant to be used by one library.
+ */
+public final class WriteAheadLog implements AutoCloseable {
+
+    /** Magic number every log file starts with, "LBW1" in ASCII*/
+    private static final int MAGIC = 0x4C425731;
+    /** Size in bytes of the header at the start of the log: magic number and generation*/
+    private static final int LOG_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    /** Record type of a book added to the library*/
+    private static final byte ADD_BOOK = 1;
+    /** Record type of a book removed from the library*/
+    private static final byte REMOVE_BOOK = 2;
+    /** Size in bytes of the header in front of every record payload: length and checksum*/
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    /** Maximum number of bytes the UTF-8 encoding of a single char can take*/
+    private static final int MAX_BYTES_PER_CHAR = 3;
+    /** Size in bytes of the buffer records are collected in before they are written*/
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** Channel of the log file, positioned at its end. */
+    private final FileChannel channel;
+    /** Buffer collecting the records that have not been written yet. */
+    private ByteBuffer buffer;
+    /** Checksum computation reused for all records. */
+    private final CRC32 checksum;
+    /** First error that occurred while writing, reported on the next commit. */
+    private IOException failure;
+    /** Generation of the log, as written in its header. */
+    private long generation;
+
+    /**
+     * Create a log appending to the given channel.
+     * @param channel channel of the log file, positioned at its end
+     * @param generation generation of the log
+     */
+    private WriteAheadLog(FileChannel channel, long generation) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.checksum = new CRC32();
+        this.failure = null;
+        this.generation = generation;
+    }
+
+    /**
+     * Open the given log file for appending, creating it if it does not exist.
+     * A log of at least the given generation is appended to, while any other
+     * log, whose records are all contained in the snapshot of the given
+     * generation, is cleared and restarted with the given generation.
+     * @param file path of the log file
+     * @param generation generation of the snapshot the log continues
+     * @return log appending to the file
+     * @throws IOException if the file cannot be opened
+     * @throws NullPointerException if the given path is null
+     */
+    public static WriteAheadLog open(Path file, long generation) throws IOException {
+        Objects.requireNonNull(file, "Given file path must not be null.");
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long logged = readGeneration(channel);
+            WriteAheadLog log = new WriteAheadLog(channel, Math.max(logged, generation));
+            if (logged < generation) {
+                log.truncate(generation);
+            } else {
+                channel.position(channel.size());
+            }
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the generation of the log, which is restarted with a new generation on every checkpoint.
+     * @return generation of the log
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Append a book added to the library.
+     * @param book added book
+     */
+    public void logAdd(BookEntry book) {
+        appendBook(ADD_BOOK, book);
+    }
+
+    /**
+     * Append a book removed from the library.
+     * @param book removed book
+     */
+    public void logRemove(BookEntry book) {
+        appendBook(REMOVE_BOOK, book);
+    }
+
+    /**
+     * Write all buffered records and force them to disk.
+     * @throws IOException if writing the log failed, now or when a full buffer was written before
+     */
+    public void commit() throws IOException {
+        if (failure == null) {
+            drain();
+        }
+        if (failure == null) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Get the size of the log file, including records not written yet.
+     * @return size of the log in bytes
+     * @throws IOException if the size cannot be determined
+     */
+    public long size() throws IOException {
+        return channel.size() + buffer.position();
+    }
+
+    /**
+     * Discard all records and restart the log with the given generation, typically
+     * after their mutations have been saved in a snapshot of that generation.
+     * @param generation new generation of the log, not smaller than the current one
+     * @throws IOException if truncating the log file fails
+     * @throws IllegalArgumentException if the given generation is smaller than the current one
+     */
+    public void truncate(long generation) throws IOException {
+        if (generation < this.generation) {
+            throw new IllegalArgumentException("Log generation must not decrease: " + generation);
+        }
+        buffer.clear();
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE).putInt(MAGIC).putLong(generation).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.position(LOG_HEADER_SIZE);
+        channel.force(true);
+        this.generation = generation;
+        failure = null;
+    }
+
+    /**
+     * Close the log file. Records that have not been committed are discarded.
+     * @throws IOException if closing the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Append a record describing a book.
+     * @param type record type
+     * @param book book to be described
+     */
+    private void appendBook(byte type, BookEntry book) {
+        String[] authors = book.authorsView();
+        int maxSize = 1 + Float.BYTES + Integer.BYTES + Integer.BYTES
+                + maxStringSize(book.getTitle()) + maxStringSize(book.getISBN());
+        for (String author : authors) {
+            maxSize += maxStringSize(author);
+        }
+
+        int start = beginRecord(type, maxSize);
+        putString(book.getTitle());
+        buffer.putInt(authors.length);
+        for (String author : authors) {
+            putString(author);
+        }
+        buffer.putFloat(book.getRating());
+        putString(book.getISBN());
+        buffer.putInt(book.getPages());
+        endRecord(start);
+    }
+
+    /**
+     * Make room for a record in the buffer and write its type.
+     * @param type record type
+     * @param maxPayloadSize upper bound of the payload size
+     * @return position of the record header in the buffer
+     */
+    private int beginRecord(byte type, int maxPayloadSize) {
+        int maxSize = RECORD_HEADER_SIZE + maxPayloadSize;
+        if (maxSize > buffer.remaining()) {
+            drain();
+            if (maxSize > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(maxSize);
+            }
+        }
+        int start = buffer.position();
+        buffer.position(start + RECORD_HEADER_SIZE);
+        buffer.put(type);
+        return start;
+    }
+
+    /**
+     * Fill in the length and checksum of the record whose payload was just written.
+     * @param start position of the record header in the buffer
+     */
+    private void endRecord(int start) {
+        int payloadStart = start + RECORD_HEADER_SIZE;
+        int payloadLength = buffer.position() - payloadStart;
+        checksum.reset();
+        checksum.update(buffer.array(), payloadStart, payloadLength);
+        buffer.putInt(start, payloadLength);
+        buffer.putInt(start + Integer.BYTES, (int) checksum.getValue());
+    }
+
+    /**
+     * Write a string as its UTF-8 bytes, prefixed with their number.
+     * @param value string to be written
+     */
+    private void putString(String value) {
+        int lengthPosition = buffer.position();
+        buffer.position(lengthPosition + Integer.BYTES);
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+        } else {
+            buffer.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - Integer.BYTES);
+    }
+
+    /**
+     * Determine an upper bound of the size of a written string.
+     * @param value string to be written
+     * @return maximum number of bytes the string takes, including its length
+     */
+    private static int maxStringSize(String value) {
+        return Integer.BYTES + MAX_BYTES_PER_CHAR * value.length();
+    }
+
+    /** Write the buffered records to the log file, remembering a failure for the next commit. */
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Hand all intact records of the given log file to the replayer in the
+     * order they were logged, unless the log is older than the given generation
+     * and its records are therefore contained in the snapshot already.
+     * A torn or corrupt tail is cut off the file.
+     * @param file path of the log file, which does not have to exist
+     * @param generation generation of the snapshot the log is replayed on
+     * @param authorDictionary dictionary the author names of the logged books are interned through
+     * @param replayer receives the logged mutations
+     * @return number of replayed records
+     * @throws IOException if reading the log file fails
+     * @throws NullPointerException if one of the given parameters is null
+     */
+    public static long replay(Path file, long generation, AuthorDictionary authorDictionary, Replayer replayer)
+            throws IOException {
+        Objects.requireNonNull(file, "Given file path must not be null.");
+        Objects.requireNonNull(authorDictionary, "Given author dictionary must not be null.");
+        Objects.requireNonNull(replayer, "Given replayer must not be null.");
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        long records = 0;
+        long validLength = LOG_HEADER_SIZE;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (readGeneration(channel) < generation) {
+                return 0;
+            }
+            long size = channel.size();
+            channel.position(LOG_HEADER_SIZE);
+            InputStream stream = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+            DataInputStream in = new DataInputStream(stream);
+            CRC32 crc = new CRC32();
+            byte[] payload = new byte[0];
+            while (validLength < size) {
+                int length;
+                int expected;
+                try {
+                    length = in.readInt();
+                    expected = in.readInt();
+                    if (length <= 0 || length > size - validLength - RECORD_HEADER_SIZE) {
+                        break;
+                    }
+                    if (length > payload.length) {
+                        payload = new byte[Math.max(length, 2 * payload.length)];
+                    }
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != expected || !apply(ByteBuffer.wrap(payload, 0, length), authorDictionary, replayer)) {
+                    break;
+                }
+                validLength += RECORD_HEADER_SIZE + length;
+                records++;
+            }
+
+            if (validLength < size) {
+                System.err.println("ERROR: Discarding " + (size - validLength)
+                        + " bytes of incomplete records at the end of log: " + file);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Read the generation from the header of a log file.
+     * @param channel channel of the log file
+     * @return generation of the log, or -1 if the file does not start with a complete header
+     * @throws IOException if reading the log file fails
+     */
+    private static long readGeneration(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+            return -1;
+        }
+        return header.getLong(Integer.BYTES);
+    }
+
+    /**
+     * Decode a record payload and hand its mutation to the replayer.
+     * @param payload payload of the record
+     * @param authorDictionary dictionary the author names are interned through
+     * @param replayer receives the mutation
+     * @return true if the payload was a valid record, false otherwise
+     */
+    private static boolean apply(ByteBuffer payload, AuthorDictionary authorDictionary, Replayer replayer) {
+        byte type;
+        BookEntry book;
+        try {
+            type = payload.get();
+            if (type != ADD_BOOK && type != REMOVE_BOOK) {
+                return false;
+            }
+            book = getBook(payload, authorDictionary);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return false;
+        }
+        if (payload.hasRemaining()) {
+            return false;
+        }
+
+        if (type == ADD_BOOK) {
+            replayer.add(book);
+        } else {
+            replayer.remove(book);
+        }
+        return true;
+    }
+
+    /**
+     * Decode a book described by a record.
+     * @param payload payload positioned at the book
+     * @param authorDictionary dictionary the author names are interned through
+     * @return decoded book
+     */
+    private static BookEntry getBook(ByteBuffer payload, AuthorDictionary authorDictionary) {
+        String title = getString(payload);
+        int authorCount = payload.getInt();
+        if (authorCount < 0 || authorCount > payload.remaining()) {
+            throw new IllegalArgumentException("Invalid number of authors: " + authorCount);
+        }
+        String[] authors = new String[authorCount];
+        for (int i = 0; i < authorCount; i++) {
+            authors[i] = authorDictionary.intern(getString(payload));
+        }
+        float rating = payload.getFloat();
+        String ISBN = getString(payload);
+        int pages = payload.getInt();
+        return new BookEntry(title, authors, rating, ISBN, pages);
+    }
+
+    /**
+     * Decode a length prefixed UTF-8 string.
+     * @param payload payload positioned at the string
+     * @return decoded string
+     */
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0 || length > payload.remaining()) {
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        }
+        String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length,
+                StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+
+    /** Receiver of the mutations replayed from a log. */
+    public interface Replayer {
+
+        /**
+         * Apply a logged addition of a book.
+         * @param book added book
+         */
+        void add(BookEntry book);
+
+        /**
+         * Apply a logged removal of a book.
+         * @param book removed book
+         */
+        void remove(BookEntry book);
+    }
+}